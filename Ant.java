@@ -10,10 +10,25 @@
  * Implementation of the Ant Object.
  *
  */
-import java.util.Random;
-
 public class Ant {
 
+	private static final int[] DX = { -1, 1, 0, 0 }; // Row change for each direction: up, down, left, right.
+	private static final int[] DY = { 0, 0, -1, 1 }; // Column change for each direction: up, down, left, right.
+	private static final int SEARCH = 0; // Planned step: keep looking for food.
+	private static final int PICK_UP = 1; // Planned step: grab the food of the current cell.
+	private static final int RETURN = 2; // Planned step: go one step back to the nest.
+	private static final int DELIVER = 3; // Planned step: unload the food at the nest.
+	private static final long GAMMA = 0x9E3779B97F4A7C15L; // Step of the random number stream.
+	static final int STATE_SIZE = 5; // Numbers saved by saveState() for each ant, besides its random state.
+	private static final String[] STATUS = { " It has found food!", // Text of each status, in the order below.
+			" It has returned to its nest and has food to deliver.", " It is at its nest and does not hold any food.",
+			" It is going back to its nest with food.", " It is out looking for food." };
+	static final int FOUND_FOOD = 0; // Status: on a food source, away from any nest.
+	static final int AT_NEST_WITH_FOOD = 1; // Status: at its nest, carrying a seed.
+	static final int AT_NEST = 2; // Status: at its nest, without a seed.
+	static final int GOING_BACK = 3; // Status: carrying a seed, away from its nest.
+	static final int LOOKING = 4; // Status: without a seed, away from its nest.
+
 	private CellGrid terain; // The field in which it is located and operates.
 	private int id; // Its ID.
 	private int[] pos; // The coordinates of its current position.
@@ -21,7 +36,16 @@ public class Ant {
 	private int previousY; // The Y coordinate of its preceding position.
 	private int[] nestPos; // Coordinates of its nest.
 	private boolean carriesFood; // Whether it carries a seed.
-	private String color; // The colour of its tribe.
+	private Colony colony; // Its tribe.
+	private int tribe; // Index of its tribe among the tribes of the field, which is the scent it follows.
+	private long random; // State of its own stream of random numbers.
+	private int plannedStep; // The step planned for the current point in time.
+	private int bestDirections; // Mask of the directions with the largest score, when searching.
+	private EventLog log; // Log its steps are recorded in, null if it is not traced.
+	private int logColony; // Index of its tribe in the log.
+	private Heatmap heat; // Heatmap its steps are counted in, null if they are not counted.
+	private EngineMetrics metrics; // Metrics its steps are counted in, null if they are not counted.
+	private FlowField flow; // Distances to its nest, null until the field has obstacles.
 
 	/**
 	 * Ant Object constructor. All of the class private variables are initialised to
@@ -32,14 +56,16 @@ public class Ant {
 	 * @param Id
 	 *            Ant's identity.
 	 * @param col
-	 *            Ant's tribe colour.
-	 * @param NestPos
-	 *            Position of ant's nest.
+	 *            Ant's tribe, which also gives the position of its nest.
+	 * @param seed
+	 *            Seed of the simulation, from which the random numbers of the ant
+	 *            are derived.
 	 */
-	public Ant(CellGrid grid, int Id, String col, int[] NestPos) {
+	public Ant(CellGrid grid, int Id, Colony col, long seed) {
+		int[] NestPos = col.getNestPos();
 		terain = grid;
 		id = Id;
-		color = new String(col);
+		colony = col;
 		pos = new int[2];
 		nestPos = new int[2];
 		nestPos[0] = NestPos[0];
@@ -49,17 +75,142 @@ public class Ant {
 		previousX = -1; // Initial fake values.
 		previousY = -1;
 		carriesFood = false; // It does not carry food at the start.
+		random = seedFor(seed, Id);
+	}
+
+	/**
+	 * Derives the seed of the random numbers of an ant from the seed of the
+	 * simulation and the ant's ID, so that each ant gets the same numbers for a
+	 * given simulation seed no matter in which order the ants are created.
+	 * 
+	 * @param seed
+	 *            Seed of the simulation.
+	 * @param Id
+	 *            Ant's identity.
+	 * @return Seed of the ant.
+	 */
+	private static long seedFor(long seed, int Id) {
+		long z = seed + (Id + 1) * GAMMA; // Mix of SplitMix64.
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Gives a random number between 0 (inclusive) and the bound (exclusive) from
+	 * the stream of the ant. The stream is the one of SplittableRandom, whose
+	 * state is a single number that can be saved and restored.
+	 * 
+	 * @param bound
+	 *            Upper bound of the number, positive.
+	 * @return The random number.
+	 */
+	private int nextInt(int bound) {
+		int m = bound - 1;
+		int r = mix32(random += GAMMA);
+		if ((bound & m) == 0)
+			return r & m;
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(random += GAMMA) >>> 1)
+			; // Reject the numbers that would make the smaller results more likely.
+		return r;
+	}
+
+	/**
+	 * Turns the state of the random number stream into a 32-bit random number.
+	 */
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+		return (int) (((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
 	}
 
 	/**
-	 * Moves an ant by one step at a given point in time with the aid of private
-	 * methods searchFood() and goBackNest().
+	 * Moves an ant by one step at a given point in time with the aid of methods
+	 * plan() and commit(), called one after the other.
 	 * 
 	 * @param time
 	 *            Point in time the method was called.
 	 */
 	public void move(int time) {
-		if (!carriesFood)
+		plan(time);
+		commit(time);
+	}
+
+	/**
+	 * First phase of a step. The ant decides what it will do at the given point in
+	 * time, by only reading the field, so the ants of the field can plan their
+	 * steps at the same time. If it does not hold a seed, it will either grab the
+	 * food of the cell it is on or keep looking for food, and if it does, it will
+	 * either unload it at its nest or go back to it.
+	 * 
+	 * @param time
+	 *            Point in time the method was called.
+	 */
+	public void plan(int time) {
+		plan(time, null, 0);
+	}
+
+	/**
+	 * First phase of a step, like plan(int), where the scent is read from a copy
+	 * of part of the field instead of the field itself.
+	 * 
+	 * @param time
+	 *            Point in time the method was called.
+	 * @param scent
+	 *            Copy of the scent of consecutive cells, null to read the field.
+	 * @param offset
+	 *            Index of the cell whose scent is at the start of the copy.
+	 */
+	public void plan(int time, int[] scent, int offset) {
+		if (carriesFood) {
+			plannedStep = isAtNest() ? DELIVER : RETURN;
+			return;
+		}
+		int current = terain.index(pos[0], pos[1]);
+		if (!terain.withNest(current) && terain.hasFood(current)) // Check if the ant reached a food source.
+			plannedStep = PICK_UP;
+		else
+			plannedStep = SEARCH;
+
+		// Find the directions with the largest score, kept as bits of a mask. They
+		// are also needed when grabbing the food fails.
+		float maxScore = Float.NEGATIVE_INFINITY;
+		int best = 0;
+		for (int d = 0; d < 4; d++) {
+			float score = calculateScore(pos[0] + DX[d], pos[1] + DY[d], scent, offset);
+			if (score > maxScore) {
+				maxScore = score;
+				best = 1 << d;
+			} else if (score == maxScore)
+				best |= 1 << d;
+		}
+		if (maxScore < 0) // Only the cell it came from can be crossed, if any.
+			best = backDirection();
+		bestDirections = best;
+	}
+
+	/**
+	 * Second phase of a step, where the step planned by plan() is applied to the
+	 * field. The ants of the field commit their steps one at a time and in the same
+	 * order at every point in time, so if two ants planned to grab the last seed of
+	 * a cell, the first one takes it and the other one keeps looking for food.
+	 * 
+	 * @param time
+	 *            Point in time the method was called.
+	 */
+	public void commit(int time) {
+		int current = terain.index(pos[0], pos[1]);
+		if (plannedStep == PICK_UP && terain.hasFood(current)) {
+			terain.pickUpFood(current); // Grab the food
+			colony.pickedUp();
+			carriesFood = true; // Change boolean variable to signify ant carrying food.
+			if (log != null)
+				log.record(time, id, current, EventLog.PICK_UP | logColony << 16);
+			if (heat != null)
+				heat.pickUp(current);
+			if (metrics != null)
+				metrics.pickedUp();
+			goBackNest(time); // Call goBackNest at the same time point.
+		} else if (plannedStep == PICK_UP || plannedStep == SEARCH)
 			searchFood(time);
 		else
 			goBackNest(time);
@@ -79,95 +230,66 @@ public class Ant {
 	 *            Point in time the method was called.
 	 */
 	private void searchFood(int time) {
-		Cell current = terain.getCell(pos[0], pos[1]);
-		if (!current.withNest() && current.hasFood()) { // Check if the ant reached a food source.
-			current.getFood(); // Grab the food
-			carriesFood = true; // Change boolean variable to signify ant carrying food.
-			goBackNest(time); // Call goBackNest at the same time point.
-			return;
-		}
+		int current = terain.index(pos[0], pos[1]);
 
-		int directions[][] = new int[4][2]; // 2D array that stores all available positions the ant can move in.
-		int directionsScore[] = new int[4]; // Array that stores score for each available direction.
-		directions[0][0] = pos[0] - 1;
-		directions[0][1] = pos[1];
-		directions[1][0] = pos[0] + 1;
-		directions[1][1] = pos[1];
-		directions[2][0] = pos[0];
-		directions[2][1] = pos[1] - 1;
-		directions[3][0] = pos[0];
-		directions[3][1] = pos[1] + 1;
-		for (int i = 0; i < directionsScore.length; i++) // Calculate the score for each direction.
-			directionsScore[i] = calculateScore(directions[i][0], directions[i][1]);
-		sortArrays(directions, directionsScore); // Sort directionsScore and directions in ascending order.
-
-		// Calculations for the new position to move in.
-		Random rand = new Random();
-		int[] positionToGo;
-		if (directionsScore[3] == directionsScore[2] && directionsScore[3] == directionsScore[1]) {
-			// Case where there are three directions with the same score.
-			int randomIndex = rand.nextInt(3) + 1; // Choose randomly from the three directions.
-			positionToGo = directions[randomIndex];
-		} else if (directionsScore[3] == directionsScore[2]) {
-			// Case where there are two directions with the same score.
-			int randomIndex = rand.nextInt(2) + 2; // Choose randomly from the two directions.
-			positionToGo = directions[randomIndex];
-		} else
-			positionToGo = directions[3]; // The last cell has the largest amount of scent.
+		// Calculations for the new position to move in. When all four directions
+		// have the same score only the last three are considered, as it has always
+		// been done. Otherwise, it chooses randomly between the best directions.
+		int best = bestDirections;
+		if (best == 15)
+			best = 14;
+		if (best == 0) // It is walled in, so it waits where it is.
+			return;
+		int count = Integer.bitCount(best);
+		for (int skip = count > 1 ? nextInt(count) : 0; skip > 0; skip--)
+			best &= best - 1; // Drop the lowest direction.
+		int direction = Integer.numberOfTrailingZeros(best);
 
 		previousX = pos[0]; // Previous coordinates changed.
 		previousY = pos[1];
 
-		pos[0] = positionToGo[0]; // Current coordinates changed.
-		pos[1] = positionToGo[1];
+		pos[0] += DX[direction]; // Current coordinates changed.
+		pos[1] += DY[direction];
 
-		current.removeAnt(id); // Ant removal from current position.
-
-		Cell next = terain.getCell(pos[0], pos[1]);
-		next.addAnt(id); // Add ant on current cell.
+		terain.removeAnt(current, id); // Ant removal from current position.
+		terain.addAnt(terain.index(pos[0], pos[1]), id); // Add ant on current cell.
+		if (log != null)
+			log.record(time, id, terain.index(pos[0], pos[1]), EventLog.MOVE | logColony << 16);
+		if (heat != null)
+			heat.visit(terain.index(pos[0], pos[1]));
+		if (metrics != null)
+			metrics.moved();
 	}
 
 	/**
 	 * This a helper function for assisting in the score calculation. If the point
-	 * (x,y) is the same as the previous position or either X or Y are out of the
-	 * terrain bounds, -1 is returned. Otherwise, the scent of that cell is
-	 * returned.
+	 * (x,y) is the same as the previous position, either X or Y are out of the
+	 * terrain bounds or the cell cannot be crossed, -1 is returned. Otherwise, the
+	 * scent of that cell is returned, which is its scent level if the field keeps
+	 * the scent as levels, and the scent of its own tribe if each tribe has its
+	 * own.
 	 * 
 	 * @param x
 	 *            Coordinates on the X axle.
 	 * @param y
 	 *            Coordinates on the Y axle.
+	 * @param scent
+	 *            Copy of the scent of consecutive cells, null to read the field.
+	 * @param offset
+	 *            Index of the cell whose scent is at the start of the copy.
 	 * @return Score for a given point.
 	 */
-	private int calculateScore(int x, int y) {
+	private float calculateScore(int x, int y, int[] scent, int offset) {
 		if (wasAt(x, y)) // Same as previous position.
 			return -1;
 		if (x == terain.getSize() || x == -1 || y == terain.getSize() || y == -1) // Out of bounds.
 			return -1;
+		else if (terain.isBlocked(terain.index(x, y))) // A wall or water.
+			return -1;
+		else if (scent != null)
+			return scent[terain.index(x, y) - offset]; // Returned the copied scent of a valid cell.
 		else
-			return terain.getCell(x, y).getScent(); // Returned the scent of a valid cell.
-	}
-
-	/**
-	 * Bubble Sort simultaneously directionsScore and directions in ascending order.
-	 * 
-	 * @param directions
-	 *            2D array that stores all available positions the ant can move in.
-	 * @param directionsScore
-	 *            Array that stores score for each available direction.
-	 */
-	private void sortArrays(int directions[][], int directionsScore[]) {
-		int n = directionsScore.length;
-		for (int i = 0; i < n - 1; i++)
-			for (int j = 0; j < n - i - 1; j++)
-				if (directionsScore[j] > directionsScore[j + 1]) {
-					int temp = directionsScore[j];
-					int[] tempArray = directions[j];
-					directionsScore[j] = directionsScore[j + 1];
-					directions[j] = directions[j + 1];
-					directionsScore[j + 1] = temp;
-					directions[j + 1] = tempArray;
-				}
+			return terain.getScentLevel(terain.index(x, y), tribe); // Returned the scent of a valid cell.
 	}
 
 	/**
@@ -183,51 +305,78 @@ public class Ant {
 	 *            Point in time the method was called.
 	 */
 	private void goBackNest(int time) {
-		Cell current = terain.getCell(pos[0], pos[1]);
+		int current = terain.index(pos[0], pos[1]);
 		if (isAtNest()) { // Reached his nest.
-			current.putFood(); // Unload the food.
+			terain.deliverFood(current); // Unload the food.
+			colony.delivered();
 			carriesFood = false; // Food does not carry food anymore.
+			if (log != null)
+				log.record(time, id, current, EventLog.DELIVER | logColony << 16);
+			if (heat != null)
+				heat.deliver(current);
+			if (metrics != null)
+				metrics.delivered();
 			return;
 		}
-		current.removeAnt(id); // Ant removal from current cell.
-		current.addScent(time); // Scent is added to the cell it is about to leave.
-
-		// Manhattan Distance calculations
-		int[] distances = new int[4]; // Store Manhattan Distance score for each direction.
-		distances[0] = Math.abs((pos[0] - 1) - nestPos[0]) + Math.abs(pos[1] - nestPos[1]); // Up
-		distances[1] = Math.abs((pos[0] + 1) - nestPos[0]) + Math.abs(pos[1] - nestPos[1]); // Down
-		distances[2] = Math.abs(pos[0] - nestPos[0]) + Math.abs((pos[1] - 1) - nestPos[1]); // Left
-		distances[3] = Math.abs(pos[0] - nestPos[0]) + Math.abs((pos[1] + 1) - nestPos[1]); // Right
-
-		// Calculate the minimum distance.
-		int min = Integer.MAX_VALUE;
-		int minIndex = 0;
-		for (int i = 0; i < distances.length; i++)
-			if (distances[i] < min) {
-				min = distances[i];
-				minIndex = i;
+
+		// Find the direction with the minimum Manhattan Distance, the first one
+		// of up, down, left and right in case of a tie. Around obstacles, the
+		// distances of the flow field of the nest are used instead.
+		int direction = 0;
+		if (terain.hasObstacles()) {
+			if (flow == null)
+				flow = terain.flowField(terain.index(nestPos[0], nestPos[1]));
+			direction = flow.bestDirection(pos[0], pos[1]);
+			if (direction < 0) // The nest cannot be reached, so it waits where it is.
+				return;
+		} else {
+			int min = Integer.MAX_VALUE;
+			for (int d = 0; d < 4; d++) {
+				int distance = Math.abs(pos[0] + DX[d] - nestPos[0]) + Math.abs(pos[1] + DY[d] - nestPos[1]);
+				if (distance < min) {
+					min = distance;
+					direction = d;
+				}
 			}
+		}
+
+		terain.removeAnt(current, id); // Ant removal from current cell.
+		// Scent is added to the cell it is about to leave, unless the tribe has too much on it.
+		boolean anointed = terain.addScent(current, time, tribe);
+		if (anointed && log != null)
+			log.record(time, id, current, EventLog.SCENT | logColony << 16);
 
 		previousX = pos[0]; // Change previous position to point to current one.
 		previousY = pos[1];
-		// Calculation of the new position in terrain.
-		switch (minIndex) { // Find direction with shorter distance.
-		case 0: // Up
-			pos[0] = pos[0] - 1;
-			break;
-		case 1: // Down
-			pos[0] = pos[0] + 1;
-			break;
-		case 2: // Left
-			pos[1] = pos[1] - 1;
-			break;
-		case 3: // Right
-			pos[1] = pos[1] + 1;
-			break;
+		pos[0] += DX[direction]; // Calculation of the new position in terrain.
+		pos[1] += DY[direction];
+
+		terain.addAnt(terain.index(pos[0], pos[1]), id); // Move ant to new cell.
+		if (log != null)
+			log.record(time, id, terain.index(pos[0], pos[1]), EventLog.MOVE | logColony << 16);
+		if (heat != null)
+			heat.visit(terain.index(pos[0], pos[1]));
+		if (metrics != null) {
+			if (anointed)
+				metrics.deposited();
+			metrics.moved();
 		}
+	}
 
-		Cell next = terain.getCell(pos[0], pos[1]);
-		next.addAnt(id); // Move ant to new cell.
+	/**
+	 * Gives the direction back to the cell the ant came from, if it can be
+	 * crossed.
+	 * 
+	 * @return Mask with the bit of that direction, 0 if there is none.
+	 */
+	private int backDirection() {
+		for (int d = 0; d < 4; d++) {
+			int x = pos[0] + DX[d], y = pos[1] + DY[d];
+			if (wasAt(x, y) && x >= 0 && x < terain.getSize() && y >= 0 && y < terain.getSize()
+					&& !terain.isBlocked(terain.index(x, y)))
+				return 1 << d;
+		}
+		return 0;
 	}
 
 	/**
@@ -307,25 +456,147 @@ public class Ant {
 		return carriesFood;
 	}
 
+	/**
+	 * Copies the state of the ant that changes as it moves, which is its position,
+	 * its preceding position, whether it carries a seed and the state of its
+	 * random numbers, to the given arrays so that it can be checkpointed.
+	 * 
+	 * @param state
+	 *            Array with STATE_SIZE numbers for each ant.
+	 * @param randoms
+	 *            Array with the random state of each ant.
+	 * @param k
+	 *            Position of the ant in the arrays.
+	 */
+	void saveState(int[] state, long[] randoms, int k) {
+		int at = k * STATE_SIZE;
+		state[at] = pos[0];
+		state[at + 1] = pos[1];
+		state[at + 2] = previousX;
+		state[at + 3] = previousY;
+		state[at + 4] = carriesFood ? 1 : 0;
+		randoms[k] = random;
+	}
+
+	/**
+	 * Sets the state of the ant that changes as it moves from the given arrays, as
+	 * they were filled by saveState(). The ant is not moved on the field.
+	 * 
+	 * @param state
+	 *            Array with STATE_SIZE numbers for each ant.
+	 * @param randoms
+	 *            Array with the random state of each ant.
+	 * @param k
+	 *            Position of the ant in the arrays.
+	 */
+	void restoreState(int[] state, long[] randoms, int k) {
+		int at = k * STATE_SIZE;
+		pos[0] = state[at];
+		pos[1] = state[at + 1];
+		previousX = state[at + 2];
+		previousY = state[at + 3];
+		carriesFood = state[at + 4] != 0;
+		random = randoms[k];
+	}
+
+	/**
+	 * Gives the ant the index of its tribe among the tribes of the field, which
+	 * is whose scent it leaves and follows if the tribes have their own scent.
+	 * 
+	 * @param index
+	 *            Index of the tribe.
+	 */
+	public void setTribe(int index) {
+		tribe = index;
+	}
+
+	/**
+	 * Starts recording the steps of the ant, and its state at the start of each
+	 * point in time, in an event log.
+	 * 
+	 * @param eventLog
+	 *            The log.
+	 * @param colonyIndex
+	 *            Index of the tribe of the ant in the log.
+	 */
+	public void traceTo(EventLog eventLog, int colonyIndex) {
+		log = eventLog;
+		logColony = colonyIndex;
+	}
+
+	/**
+	 * Starts counting the moves, pickups and deliveries of the ant in a heatmap.
+	 * 
+	 * @param heatmap
+	 *            The heatmap.
+	 */
+	public void accumulateTo(Heatmap heatmap) {
+		heat = heatmap;
+	}
+
+	/**
+	 * Starts counting the moves, pickups, deliveries and scent of the ant in the
+	 * metrics of the engine.
+	 * 
+	 * @param engineMetrics
+	 *            The metrics.
+	 */
+	public void countTo(EngineMetrics engineMetrics) {
+		metrics = engineMetrics;
+	}
+
+	/**
+	 * Records the state of the ant in its event log, if it is traced, as it is at
+	 * the start of the given point in time.
+	 * 
+	 * @param time
+	 *            Point in time that is about to run.
+	 */
+	public void traceState(int time) {
+		if (log != null)
+			log.record(time, id, terain.index(pos[0], pos[1]), EventLog.STATE | status() << 8 | logColony << 16);
+	}
+
+	/**
+	 * Gives the status of the ant, which is one of FOUND_FOOD, AT_NEST_WITH_FOOD,
+	 * AT_NEST, GOING_BACK and LOOKING.
+	 * 
+	 * @return Status of the ant.
+	 */
+	int status() {
+		int current = terain.index(pos[0], pos[1]);
+		if (terain.hasFood(current) && !isAtNest() && !terain.withNest(current))
+			return FOUND_FOOD;
+		if (isAtNest())
+			return carriesFood ? AT_NEST_WITH_FOOD : AT_NEST;
+		return carriesFood ? GOING_BACK : LOOKING;
+	}
+
+	/**
+	 * Gives the text that describes an ant, as toString() does.
+	 * 
+	 * @param colonyName
+	 *            Colour of its tribe.
+	 * @param Id
+	 *            Ant's identity.
+	 * @param x
+	 *            Row of its position.
+	 * @param y
+	 *            Column of its position.
+	 * @param status
+	 *            Status of the ant, as given by status().
+	 * @return Description of the ant.
+	 */
+	static String describe(String colonyName, int Id, int x, int y, int status) {
+		return colonyName + " Ant-" + Id + " at (" + x + "," + y + ")." + STATUS[status];
+	}
+
 	/**
 	 * The toString method gives the external presentation for the Object Ant as a
 	 * string.
 	 */
 	public String toString() {
-		String s = color + " Ant-" + id + " at (" + pos[0] + "," + pos[1] + ").";
-		if (terain.getCell(pos[0], pos[1]).hasFood() && !isAtNest() && !terain.getCell(pos[0], pos[1]).withNest()) {
-			s += " It has found food!";
-			return s;
-		}
-		if (isAtNest() && carriesFood)
-			s += " It has returned to its nest and has food to deliver.";
-		if (isAtNest() && !carriesFood)
-			s += " It is at its nest and does not hold any food.";
-		if (!isAtNest() && carriesFood)
-			s += " It is going back to its nest with food.";
-		if (!isAtNest() && !carriesFood)
-			s += " It is out looking for food.";
-		return s;
+		return describe(colony.getName(), id, pos[0], pos[1], status());
 	}
 
 }
\ No newline at end of file
@@ -1,59 +1,40 @@
 import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 public class AntColonies {
 
 	private static final int scentDuration = 50;
 
-	private static boolean someAntsCarryFood(Ant[] ants) {
-		for (Ant a : ants)
-			if (a.carries_food())
-				return true;
-		return false;
-	}
-
 	private static Picture scaleToHalf(Picture pic) {
-		Picture picH = new Picture(pic.width() / 2, pic.height() / 2);
-		for (int tx = 0; tx < picH.width(); tx++) {
-			for (int ty = 0; ty < picH.height(); ty++) {
-				int sx = tx * pic.width() / picH.width();
-				int sy = ty * pic.height() / picH.height();
-				picH.set(tx, ty, pic.get(sx, sy));
-			}
-		}
-		return picH;
+		return pic.scale(pic.width() / 2, pic.height() / 2);
 	}
 
 	private static Picture bottomRight(Picture pic, Color c) {
-		int w = pic.width(), h = pic.height();
-		Picture npic = new Picture(w * 2, h * 2);
-		for (int i = 0; i < npic.width(); i++)
-			for (int j = 0; j < npic.height(); j++)
-				npic.set(i, j, c);
-		for (int i = 0; i < pic.width(); i++)
-			for (int j = 0; j < pic.height(); j++)
-				npic.set(i + w, j + h, pic.get(i, j));
-		return npic;
+		return pic.pad(pic.width() * 2, pic.height() * 2, pic.width(), pic.height(), c.getRGB());
 	}
 
-	public static void main(String[] args) {
+	private static void printTerain(Writer out, CellGrid terain) throws IOException {
+		terain.dump(out);
+		out.write(System.lineSeparator());
+	}
+
+	public static void main(String[] args) throws IOException {
 		CellGrid terain = new CellGrid(5);
-		Ant[] redAnts = new Ant[10];
-		Ant[] blackAnts = new Ant[10];
 		int[] redIds = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
 		int[] blackIds = { 10, 11, 12, 13, 14, 15, 16, 17, 18, 19 };
 
-		int nx1 = 1, ny1 = 4, nx2 = 4, ny2 = 1;
-		for (int i = 0; i < 10; i++) {
-			int[] nestPos = { nx1, ny1 };
-			redAnts[i] = new Ant(terain, redIds[i], "Red", nestPos);
-		}
-		terain.putNest(nx1, ny1, redIds);
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
 
-		for (int i = 0; i < 10; i++) {
-			int[] nestPos = { nx2, ny2 };
-			blackAnts[i] = new Ant(terain, blackIds[i], "Black", nestPos);
-		}
-		terain.putNest(nx2, ny2, blackIds);
+		int nx1 = 1, ny1 = 4, nx2 = 4, ny2 = 1;
+		Colony red = new Colony(terain, "Red", nx1, ny1, redIds, seed);
+		Colony black = new Colony(terain, "Black", nx2, ny2, blackIds, seed);
+		Ant[] redAnts = red.getAnts();
+		Ant[] blackAnts = black.getAnts();
+		int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+		Simulation sim = new Simulation(terain, new Colony[] { red, black }, scentDuration, threads);
 
 		int fx1 = 2, fy1 = 2, fx2 = 3, fy2 = 3;
 		terain.getCell(fx1, fy1).putFood(Integer.parseInt(args[0]));
@@ -66,31 +47,29 @@ public class AntColonies {
 			showRed = false;
 		int antNo = Integer.parseInt(args[3]);
 
-		int time = 1;
-
-		System.out.println("INITIAL");
-		System.out.println(terain);
+		// All the text goes through one buffer, so the steps only wait for the
+		// console each time 64 KiB of text has piled up, and the rest is written
+		// out once the simulation is over.
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+		String nl = System.lineSeparator();
+		out.write("INITIAL" + nl);
+		printTerain(out, terain);
 		terain.draw();
 		StdDraw.save("terainStart.jpg");
-		while (!terain.allSeedsCollected() || someAntsCarryFood(redAnts) || someAntsCarryFood(blackAnts)) {
-			if (showRed) {
-				System.out.println("Time " + time + ": " + redAnts[antNo]);
-			} else {
-				System.out.println("Time " + time + ": " + blackAnts[antNo]);
-			}
-			for (int i = 0; i < 10; i++) {
-				redAnts[i].move(time);
-				blackAnts[i].move(time);
-			}
-			terain.updateScent(time, scentDuration);
-			time++;
+		Ant traced = showRed ? redAnts[antNo] : blackAnts[antNo];
+		while (!sim.finished()) {
+			int time = sim.getTime() + 1;
+			out.write("Time " + time + ": " + traced + nl);
+			sim.step();
 		}
-		time--;
+		int time = sim.getTime();
+		sim.shutdown();
 
-		System.out.println("\nFINAL");
-		System.out.println(terain);
-		System.out.println("\nTIME = " + time + "\n");
-		terain.draw();
+		out.write(nl + "FINAL" + nl);
+		printTerain(out, terain);
+		out.write(nl + "TIME = " + time + nl + nl);
+		out.flush();
+		terain.drawChanges(); // Only the food sources that ran out are drawn again.
 		StdDraw.save("terainFinish.jpg");
 		Picture picS = new Picture("terainStart.jpg");
 		Picture picSH = scaleToHalf(picS);
@@ -0,0 +1,129 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 64 -nest 10,10 -nest 50,50 -food 30,30,500
+ *
+ * Runs a scenario given on the command line without drawing on the screen, so
+ * it needs neither a display nor stdlib.jar, and prints one line with the
+ * outcome at the end. AWT classes are only loaded to write an -image, to show
+ * the -live view, to -export frames or to render a -heatmapImage, and JMX
+ * classes only to measure the engine with -metrics or -jmx. See
+ * Scenario.parse for the options.
+ *
+ */
+import java.io.IOException;
+
+public class BatchRun {
+
+	public static void main(String[] args) {
+		Scenario scenario;
+		try {
+			scenario = Scenario.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java BatchRun (-nest X,Y[,ANTS] ... [-food X,Y,SEEDS ...] [-size N] [-ants N]"
+					+ " | -file PATH | -resume PATH) [-wall X1,Y1,X2,Y2[,T] ...] [-water X1,Y1,X2,Y2[,T] ...]"
+					+ " [-clear X1,Y1,X2,Y2,T ...] [-save PATH] [-checkpoint PATH] [-every N]"
+					+ " [-scent N [-ownScent true|false] | -decay F [-diffusion D]] [-seed N] [-ticks N] [-threads N]"
+					+ " [-trace PATH [-traceAnts ID,ID,...|all] [-traceColony C]]"
+					+ " [-image PATH] [-live FPS [-liveEvery N]] [-export DIR] [-exportRaw PATH] [-exportEvery N]"
+					+ " [-exportThreads N] [-exportQueue N] [-heatmap PATH] [-heatmapImage PATH]"
+					+ " [-heatmapLayer visits|scent|pickups|deliveries] [-pixels N] [-imageScent true|false]"
+					+ " [-metrics PATH [-metricsEvery N]] [-jmx true|false]");
+			System.exit(1);
+			return;
+		}
+
+		long start = System.nanoTime();
+		Simulation sim;
+		try {
+			sim = scenario.build();
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		long built = System.nanoTime();
+		int first = sim.getTime();
+		try {
+			EngineMetrics metrics = scenario.createMetrics();
+			if (metrics != null)
+				sim.measure(metrics);
+			EventLog log = null;
+			if (scenario.getTraceFile() != null) {
+				log = new EventLog(scenario.getTraceFile(), sim.getGrid().getSize(), sim.getColonies());
+				sim.trace(log, scenario.getTraceColony(), scenario.getTraceAnts());
+			}
+			Heatmap heat = null;
+			if (scenario.keepsHeatmap()) {
+				heat = new Heatmap(sim.getGrid().getSize());
+				sim.accumulate(heat);
+			}
+			LiveView view = null;
+			if (scenario.getLiveFps() > 0) {
+				int size = sim.getGrid().getSize();
+				view = LiveView.inWindow(size, scenario.createRenderer(size), scenario.getLiveFps());
+				sim.watch(view, scenario.getLiveEvery());
+			}
+			FrameExporter exporter = scenario.createExporter(sim.getGrid().getSize());
+			if (scenario.getCheckpointFile() == null && exporter == null && !scenario.writesMetrics())
+				sim.run(scenario.getTickLimit());
+			else {
+				Checkpointer checkpointer = null;
+				if (scenario.getCheckpointFile() != null)
+					checkpointer = new Checkpointer(scenario.getCheckpointFile());
+				if (exporter != null)
+					exporter.capture(sim.getGrid());
+				while (!sim.finished() && sim.getTime() < scenario.getTickLimit()) {
+					sim.step();
+					if (checkpointer != null && sim.getTime() % scenario.getCheckpointEvery() == 0)
+						checkpointer.checkpoint(sim);
+					if (exporter != null && sim.getTime() % scenario.getExportEvery() == 0)
+						exporter.capture(sim.getGrid());
+					if (scenario.writesMetrics() && sim.getTime() % scenario.getMetricsEvery() == 0)
+						metrics.writeCsv();
+				}
+				if (checkpointer != null)
+					checkpointer.close();
+				if (exporter != null)
+					exporter.close();
+			}
+			if (log != null)
+				log.close();
+			if (view != null) {
+				view.publish(sim.getGrid(), sim.getTime());
+				view.close();
+			}
+			if (heat != null)
+				scenario.writeHeatmap(heat, sim);
+			if (scenario.getImageFile() != null)
+				scenario.createRenderer(sim.getGrid().getSize()).writePng(sim.getGrid(), scenario.getImageFile());
+			if (metrics != null)
+				metrics.close();
+		} catch (IOException | InterruptedException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		int ticks = sim.getTime();
+		long end = System.nanoTime();
+		sim.shutdown();
+
+		CellGrid terain = sim.getGrid();
+		StringBuilder delivered = new StringBuilder();
+		for (Colony col : sim.getColonies())
+			delivered.append(delivered.length() == 0 ? "" : ",").append(col.seedsDelivered());
+		double seconds = (end - built) / 1e9;
+		System.out.println("size=" + terain.getSize() + " colonies=" + sim.getColonies().length + " ants="
+				+ sim.getAnts().length + (scenario.resumes() ? " resumedAt=" + first : " seed=" + scenario.getSeed())
+				+ " ticks=" + ticks + " finished=" + sim.finished() + " seedsLeft=" + terain.seedsRemaining()
+				+ " carrying=" + terain.antsCarrying() + " delivered=" + delivered + " setupMs="
+				+ (built - start) / 1000000 + " runMs=" + (end - built) / 1000000 + " ticksPerSec="
+				+ (seconds > 0 ? Math.round((ticks - first) / seconds) : 0));
+	}
+
+}
\ No newline at end of file
@@ -10,23 +10,197 @@
  * Implementation of the CellGrid Object.
  *
  */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 public class CellGrid {
 
+	public static final byte OPEN = 0; // Kind of a cell that ants can cross.
+	public static final byte WALL = 1; // Kind of an impassable cell that is a wall.
+	public static final byte WATER = 2; // Kind of an impassable cell that is water.
+	public static final int PACKED_NEST = 1 << 31; // Bit of a packed cell that is set if it has a nest.
+	public static final int PACKED_FOOD = 1 << 30; // Bit of a packed cell that is set if it has food.
+	public static final int PACKED_WALL = 1 << 29; // Bit of a packed cell that is set if it is a wall.
+	public static final int PACKED_WATER = 1 << 28; // Bit of a packed cell that is set if it is water.
+	public static final int PACKED_SCENT = PACKED_WATER - 1; // Bits of a packed cell that hold its scent.
+	public static final int PACKED_LEVEL_STEPS = 256; // Packed scent of a cell with a scent level of 1.
+
 	private int size; // Grid size.
-	private Cell[][] grid; // Cells that constitute a grid.
+	private int[] food; // Number of seeds on each cell.
+	private boolean[] nest; // Whether each cell has a nest on it.
+	private int[] scent; // Scent units on each cell that have not evaporated.
+	private int[] scentTimes; // Anointing times of all the scent units of the grid, oldest first.
+	private int[] scentCells; // Indices of the cells the above scent units were anointed to.
+	private int scentHead; // Position of the oldest scent unit in the two ring buffers above.
+	private int scentUnits; // Number of scent units in the two ring buffers above.
+	private int[] scentChanges; // Indices of the cells whose scent changed since the log was cleared, null if not logged.
+	private int scentChangeCount; // Number of entries in the above log.
+	private int[] ants; // Number of ants on each cell.
+	private int[] firstAnt; // ID+1 of the first ant on each cell, 0 if there is none.
+	private int[] nextAnt; // ID+1 of the next ant on the same cell as each ant, 0 if there is none.
+	private int[] prevAnt; // ID+1 of the previous ant on the same cell as each ant, 0 if there is none.
+	private int[] antCell; // Index+1 of the cell each ant is on, 0 if it is not on the grid.
+	private long seedsLeft; // Number of seeds on cells without a nest, only counting cells with more than 0.
+	private int carriers; // Number of ants that currently carry a seed.
+	private long[] occupied; // Bit for each cell that has food, a nest, scent or ants on it.
+	private int[] redraw; // Indices of the cells that look different since the grid was last drawn, null if it was not drawn.
+	private int redrawCount; // Number of entries in the above list.
+	private long[] redrawn; // Bit for each cell that is in the above list.
+	private Heatmap heat; // Counts the scent-ticks of the units that evaporate, null if they are not counted.
+	private byte[] terrain; // Kind of each cell, OPEN, WALL or WATER, null while all of them are open.
+	private ArrayList<FlowField> flows = new ArrayList<>(); // Distances to the nests that are kept up to date.
+	private ScentField scentField; // Scent levels of the cells, null while the scent is kept as units.
+	private int tribes; // Number of tribes that have their own scent, 0 if they all share it.
+	private byte[] tribeScent; // Scent units of each tribe on each cell, the tribes of cell i from i*tribes on, null if shared.
+	private byte[] scentTribes; // Tribe of each scent unit in the ring buffers, null if the scent is shared.
 
 	/**
 	 * The CellGrid Object constructor. All of the class private variables are
-	 * initialised to their default values. The grid in which the ants will be
-	 * placed on is created here and it constitutes of a 2D array(NxN) of the Cell
-	 * object.
+	 * initialised to their default values. The state of the NxN cells is kept in
+	 * flat primitive arrays, where cell (x,y) is stored at index x*N+y, so no
+	 * object is created per cell.
 	 */
 	public CellGrid(int N) {
 		size = N;
-		grid = new Cell[N][N];
-		for (int i = 0; i < N; i++)
-			for (int j = 0; j < N; j++)
-				grid[i][j] = new Cell();
+		food = new int[N * N];
+		nest = new boolean[N * N];
+		scent = new int[N * N];
+		scentTimes = new int[16];
+		scentCells = new int[16];
+		ants = new int[N * N];
+		firstAnt = new int[N * N];
+		nextAnt = new int[16];
+		prevAnt = new int[16];
+		antCell = new int[16];
+		occupied = new long[(N * N + 63) >>> 6];
+	}
+
+	/**
+	 * Creates a copy of a grid, so that its state can be written to a checkpoint
+	 * while the simulation goes on with the original, or so that a field that has
+	 * not run yet can be run again with another seed. The log of scent changes
+	 * and the flow fields are not copied.
+	 * 
+	 * @param other
+	 *            The grid to copy.
+	 */
+	CellGrid(CellGrid other) {
+		size = other.size;
+		food = other.food.clone();
+		nest = other.nest.clone();
+		scent = other.scent.clone();
+		scentTimes = other.scentTimes.clone();
+		scentCells = other.scentCells.clone();
+		scentHead = other.scentHead;
+		scentUnits = other.scentUnits;
+		ants = other.ants.clone();
+		firstAnt = other.firstAnt.clone();
+		nextAnt = other.nextAnt.clone();
+		prevAnt = other.prevAnt.clone();
+		antCell = other.antCell.clone();
+		occupied = other.occupied.clone();
+		terrain = other.terrain == null ? null : other.terrain.clone();
+		scentField = other.scentField == null ? null : new ScentField(other.scentField);
+		tribes = other.tribes;
+		tribeScent = other.tribeScent == null ? null : other.tribeScent.clone();
+		scentTribes = other.scentTribes == null ? null : other.scentTribes.clone();
+		seedsLeft = other.seedsLeft;
+		carriers = other.carriers;
+	}
+
+	/**
+	 * Reads the state of a grid from a checkpoint, as it was written by
+	 * writeState().
+	 * 
+	 * @param in
+	 *            The checkpoint.
+	 * @throws IOException
+	 *             If the checkpoint cannot be read.
+	 */
+	CellGrid(Checkpoint.Reader in) throws IOException {
+		this(in.getInt());
+		in.getInts(food, 0, food.length);
+		in.getBooleans(nest, 0, nest.length);
+		in.getInts(scent, 0, scent.length);
+		scentUnits = in.getInt();
+		int capacity = 16;
+		while (capacity < scentUnits)
+			capacity *= 2;
+		scentTimes = new int[capacity];
+		scentCells = new int[capacity];
+		in.getInts(scentTimes, 0, scentUnits);
+		in.getInts(scentCells, 0, scentUnits);
+		in.getInts(ants, 0, ants.length);
+		in.getInts(firstAnt, 0, firstAnt.length);
+		int antCapacity = in.getInt();
+		nextAnt = new int[antCapacity];
+		prevAnt = new int[antCapacity];
+		antCell = new int[antCapacity];
+		in.getInts(nextAnt, 0, antCapacity);
+		in.getInts(prevAnt, 0, antCapacity);
+		in.getInts(antCell, 0, antCapacity);
+		seedsLeft = in.getLong();
+		carriers = in.getInt();
+		if (in.getInt() != 0) {
+			terrain = new byte[size * size];
+			in.getBytes(terrain, 0, terrain.length);
+		}
+		if (in.getInt() != 0)
+			scentField = new ScentField(in, size);
+		tribes = in.getInt();
+		if (tribes > 0) {
+			tribeScent = new byte[size * size * tribes];
+			scentTribes = new byte[capacity];
+			in.getBytes(tribeScent, 0, tribeScent.length);
+			in.getBytes(scentTribes, 0, scentUnits);
+		}
+		for (int i = 0; i < food.length; i++)
+			track(i);
+	}
+
+	/**
+	 * Writes the state of the grid to a checkpoint. The scent units are written
+	 * oldest first.
+	 * 
+	 * @param out
+	 *            The checkpoint.
+	 * @throws IOException
+	 *             If the checkpoint cannot be written.
+	 */
+	void writeState(Checkpoint.Writer out) throws IOException {
+		out.putInt(size);
+		out.putInts(food, 0, food.length);
+		out.putBooleans(nest, 0, nest.length);
+		out.putInts(scent, 0, scent.length);
+		out.putInt(scentUnits);
+		int first = Math.min(scentUnits, scentTimes.length - scentHead); // Units before the ring buffers wrap around.
+		out.putInts(scentTimes, scentHead, first);
+		out.putInts(scentTimes, 0, scentUnits - first);
+		out.putInts(scentCells, scentHead, first);
+		out.putInts(scentCells, 0, scentUnits - first);
+		out.putInts(ants, 0, ants.length);
+		out.putInts(firstAnt, 0, firstAnt.length);
+		out.putInt(antCell.length);
+		out.putInts(nextAnt, 0, antCell.length);
+		out.putInts(prevAnt, 0, antCell.length);
+		out.putInts(antCell, 0, antCell.length);
+		out.putLong(seedsLeft);
+		out.putInt(carriers);
+		out.putInt(terrain != null ? 1 : 0);
+		if (terrain != null)
+			out.putBytes(terrain, 0, terrain.length);
+		out.putInt(scentField != null ? 1 : 0);
+		if (scentField != null)
+			scentField.writeState(out);
+		out.putInt(tribes);
+		if (tribes > 0) {
+			out.putBytes(tribeScent, 0, tribeScent.length);
+			out.putBytes(scentTribes, scentHead, first);
+			out.putBytes(scentTribes, 0, scentUnits - first);
+		}
 	}
 
 	/**
@@ -39,7 +213,21 @@ public class CellGrid {
 	}
 
 	/**
-	 * Returned cell located at row i and column j.
+	 * Gives the index of cell (x,y) in the flat arrays of the grid.
+	 * 
+	 * @param x
+	 *            Row of the cell.
+	 * @param y
+	 *            Column of the cell.
+	 * @return Index of the cell.
+	 */
+	public int index(int x, int y) {
+		return x * size + y;
+	}
+
+	/**
+	 * Returned cell located at row i and column j. The Cell returned is a light
+	 * view over the grid, so any change done through it is made to the grid.
 	 * 
 	 * @param i
 	 *            Row of desired cell.
@@ -48,7 +236,7 @@ public class CellGrid {
 	 * @return Cell at row i and column j.
 	 */
 	public Cell getCell(int i, int j) {
-		return grid[i][j];
+		return new Cell(this, index(i, j));
 	}
 
 	/**
@@ -63,9 +251,14 @@ public class CellGrid {
 	 *            Array with the IDs of the ants that inhabit a nest.
 	 */
 	public void putNest(int x, int y, int[] antIds) {
-		grid[x][y].putNest();
+		int index = index(x, y);
+		putNest(index);
+		int maxId = 0;
 		for (int ant : antIds)
-			grid[x][y].addAnt(ant);
+			maxId = Math.max(maxId, ant);
+		ensureAntCapacity(maxId); // Expand once for the whole colony.
+		for (int ant : antIds)
+			addAnt(index, ant);
 	}
 
 	/**
@@ -79,11 +272,578 @@ public class CellGrid {
 	 *            Number of food units to be placed in (x,y).
 	 */
 	public void putFood(int x, int y, int food) {
-		grid[x][y].putFood(food);
+		putFood(index(x, y), food);
+	}
+
+	/**
+	 * Returns whether the cell at the given index has any seeds on it.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return Cell contains food or not.
+	 */
+	public boolean hasFood(int index) {
+		return food[index] > 0;
+	}
+
+	/**
+	 * Gives the number of seeds on the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return Number of seeds on the cell.
+	 */
+	public int getFood(int index) {
+		return food[index];
+	}
+
+	/**
+	 * Reduce one seed from the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void takeFood(int index) {
+		food[index]--;
+		if (!nest[index] && food[index] >= 0)
+			seedsLeft--;
+		if (food[index] <= 0) {
+			track(index);
+			changed(index);
+		}
+	}
+
+	/**
+	 * Adds a given number of seeds to the cell at the given index. Cells with
+	 * fewer than 1 seed have no food, so only the seeds above 0 are left for
+	 * collection.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param amount
+	 *            Number of seeds to be added.
+	 */
+	public void putFood(int index, int amount) {
+		int before = food[index];
+		food[index] += amount;
+		if (!nest[index])
+			seedsLeft += Math.max(food[index], 0) - Math.max(before, 0);
+		track(index);
+		if (food[index] > 0 && food[index] - amount <= 0) // The food source appears.
+			changed(index);
+	}
+
+	/**
+	 * Adds a given number of seeds to each cell of a run of consecutive indices,
+	 * so that large fields are filled without going through one call per cell.
+	 * 
+	 * @param from
+	 *            Index of the first cell of the run.
+	 * @param count
+	 *            Number of cells in the run.
+	 * @param amount
+	 *            Number of seeds to be added to each cell.
+	 */
+	public void putFoodRun(int from, int count, int amount) {
+		if (amount == 0)
+			return;
+		for (int i = from; i < from + count; i++) {
+			int before = food[i];
+			food[i] += amount;
+			if (!nest[i])
+				seedsLeft += Math.max(food[i], 0) - Math.max(before, 0);
+			track(i);
+			changed(i);
+		}
+	}
+
+	/**
+	 * Point out that the cell at the given index has a nest on it.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void putNest(int index) {
+		if (nest[index])
+			return;
+		nest[index] = true;
+		seedsLeft -= Math.max(food[index], 0); // Seeds on a nest are stored, not left for collection.
+		track(index);
+		changed(index);
+	}
+
+	/**
+	 * Makes the cell at the given index a wall or water, which ants cannot cross,
+	 * or opens it again. The distances to the nests are brought up to date for
+	 * the cells whose way to the nest changed, so this can be done between two
+	 * points in time while the simulation runs.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param kind
+	 *            WALL, WATER or OPEN.
+	 * @throws IllegalArgumentException
+	 *             If an impassable cell would have a nest or food on it.
+	 */
+	public void putObstacle(int index, byte kind) {
+		if (kind != OPEN && (nest[index] || food[index] > 0))
+			throw new IllegalArgumentException("Obstacle on a nest or food at " + index / size + "," + index % size);
+		if (terrain == null) {
+			if (kind == OPEN)
+				return;
+			terrain = new byte[size * size];
+		}
+		boolean wasBlocked = terrain[index] != OPEN;
+		terrain[index] = kind;
+		track(index);
+		changed(index);
+		if (wasBlocked != (kind != OPEN))
+			for (FlowField flow : flows)
+				if (kind != OPEN)
+					flow.blocked(index);
+				else
+					flow.opened(index);
+	}
+
+	/**
+	 * Gives the cells of a rectangle the given kind. Walls and water are not
+	 * put on the nests, the food sources and the cells that have ants on them,
+	 * so that no ant is shut in, and those cells are left as they are.
+	 * 
+	 * @param x1
+	 *            Row of one corner.
+	 * @param y1
+	 *            Column of one corner.
+	 * @param x2
+	 *            Row of the opposite corner.
+	 * @param y2
+	 *            Column of the opposite corner.
+	 * @param kind
+	 *            WALL, WATER or OPEN.
+	 */
+	public void putObstacles(int x1, int y1, int x2, int y2, byte kind) {
+		for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++)
+			for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+				int index = index(x, y);
+				if (kind == OPEN || !nest[index] && food[index] == 0 && ants[index] == 0)
+					putObstacle(index, kind);
+			}
+	}
+
+	/**
+	 * Gives the kind of the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return OPEN, WALL or WATER.
+	 */
+	public byte getObstacle(int index) {
+		return terrain == null ? OPEN : terrain[index];
+	}
+
+	/**
+	 * Returns whether the cell at the given index cannot be crossed by the ants.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return If the cell is a wall or water.
+	 */
+	public boolean isBlocked(int index) {
+		return terrain != null && terrain[index] != OPEN;
+	}
+
+	/**
+	 * Returns whether any cell has ever been made a wall or water, in which case
+	 * the ants find their way back to the nest through the distances of a flow
+	 * field instead of the Manhattan Distance.
+	 * 
+	 * @return If the field has obstacles.
+	 */
+	public boolean hasObstacles() {
+		return terrain != null;
+	}
+
+	/**
+	 * Gives the distances to the nest at the given index, which are computed the
+	 * first time they are asked for and kept up to date as obstacles are put and
+	 * removed.
+	 * 
+	 * @param nestIndex
+	 *            Index of the cell of the nest.
+	 * @return The flow field of the nest.
+	 */
+	public FlowField flowField(int nestIndex) {
+		for (FlowField flow : flows)
+			if (flow.getNest() == nestIndex)
+				return flow;
+		FlowField flow = new FlowField(this, nestIndex);
+		flows.add(flow);
+		return flow;
+	}
+
+	/**
+	 * Returns whether the cell at the given index has a nest on it.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return If cell has a nest on it or not.
+	 */
+	public boolean withNest(int index) {
+		return nest[index];
+	}
+
+	/**
+	 * An ant picks up one seed from the cell at the given index and carries it.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void pickUpFood(int index) {
+		takeFood(index);
+		carriers++;
+	}
+
+	/**
+	 * An ant that carries a seed unloads it on the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void deliverFood(int index) {
+		putFood(index, 1);
+		carriers--;
 	}
 
 	/**
-	 * Updates the scent units for all if its cells.
+	 * Gives the number of seeds that are left for collection, which means that
+	 * they are on cells without a nest.
+	 * 
+	 * @return Number of seeds left for collection.
+	 */
+	public long seedsRemaining() {
+		return seedsLeft;
+	}
+
+	/**
+	 * Gives the number of ants on the grid that currently carry a seed.
+	 * 
+	 * @return Number of ants carrying food.
+	 */
+	public int antsCarrying() {
+		return carriers;
+	}
+
+	/**
+	 * Gives the number of ants on the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return Number of ants on the cell.
+	 */
+	public int getAnts(int index) {
+		return ants[index];
+	}
+
+	/**
+	 * Gives the ID of the first ant on the cell at the given index. Together with
+	 * nextAnt(int) it allows going through all the ants on a cell.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return ID of the first ant on the cell, -1 if there are no ants on it.
+	 */
+	public int firstAnt(int index) {
+		return firstAnt[index] - 1;
+	}
+
+	/**
+	 * Gives the ID of the ant after the ant with the given ID on the same cell.
+	 * 
+	 * @param antID
+	 *            ID of an ant on the grid.
+	 * @return ID of the next ant on the cell, -1 if it is the last one.
+	 */
+	public int nextAnt(int antID) {
+		return nextAnt[antID] - 1;
+	}
+
+	/**
+	 * Gives the index of the cell the ant with the given ID is on.
+	 * 
+	 * @param antID
+	 *            ID of the ant.
+	 * @return Index of the cell of the ant, -1 if it is not on the grid.
+	 */
+	public int antCell(int antID) {
+		if (antID >= antCell.length)
+			return -1;
+		return antCell[antID] - 1;
+	}
+
+	/**
+	 * Add the ant with antID on the cell at the given index. The ants of each
+	 * cell are kept in a doubly linked list that is threaded through arrays
+	 * indexed by the ant IDs, so an ant is added and removed in constant time.
+	 * An ant that is already on another cell is moved from it.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param antID
+	 *            ID of ant that moved to the cell.
+	 */
+	public void addAnt(int index, int antID) {
+		ensureAntCapacity(antID);
+		if (antCell[antID] != 0)
+			removeAnt(antCell[antID] - 1, antID);
+		int first = firstAnt[index];
+		nextAnt[antID] = first;
+		prevAnt[antID] = 0;
+		if (first != 0)
+			prevAnt[first - 1] = antID + 1;
+		firstAnt[index] = antID + 1;
+		antCell[antID] = index + 1;
+		ants[index]++;
+		occupied[index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Remove the ant with antID from the cell at the given index. Nothing is done
+	 * if the ant is not on that cell.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param antID
+	 *            ID of ant that left the cell.
+	 */
+	public void removeAnt(int index, int antID) {
+		if (antID >= antCell.length || antCell[antID] != index + 1)
+			return;
+		int prev = prevAnt[antID];
+		int next = nextAnt[antID];
+		if (prev != 0)
+			nextAnt[prev - 1] = next;
+		else
+			firstAnt[index] = next;
+		if (next != 0)
+			prevAnt[next - 1] = prev;
+		nextAnt[antID] = 0;
+		prevAnt[antID] = 0;
+		antCell[antID] = 0;
+		if (--ants[index] == 0)
+			track(index);
+	}
+
+	/**
+	 * Sets or clears the bit of the cell at the given index in the index of
+	 * non-empty cells, after its contents changed.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	private void track(int index) {
+		if (food[index] > 0 || nest[index] || scent[index] > 0 || ants[index] > 0 || isBlocked(index))
+			occupied[index >>> 6] |= 1L << index;
+		else
+			occupied[index >>> 6] &= ~(1L << index);
+	}
+
+	/**
+	 * Expands the arrays that are indexed by ant IDs so that they can hold the
+	 * given ID.
+	 * 
+	 * @param antID
+	 *            ID of an ant.
+	 */
+	private void ensureAntCapacity(int antID) {
+		if (antID < antCell.length)
+			return;
+		int capacity = antCell.length;
+		while (capacity <= antID)
+			capacity *= 2;
+		nextAnt = Arrays.copyOf(nextAnt, capacity);
+		prevAnt = Arrays.copyOf(prevAnt, capacity);
+		antCell = Arrays.copyOf(antCell, capacity);
+	}
+
+	/**
+	 * Gives the number of scent units that are currently anointed to the cell at
+	 * the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return Number of scent units on cell.
+	 */
+	public int getScent(int index) {
+		return scent[index];
+	}
+
+	/**
+	 * Gives the strength of the scent of the cell at the given index, which the
+	 * ants compare: its scent level if the field has one, and its number of scent
+	 * units otherwise.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return Scent of the cell, 0 if it has none.
+	 */
+	public float getScentLevel(int index) {
+		return scentField != null ? scentField.get(index) : scent[index];
+	}
+
+	/**
+	 * Gives the strength of the scent of the cell at the given index that the
+	 * ants of a tribe follow: the scent units of that tribe if the tribes have
+	 * their own scent, and the scent of all of them otherwise.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param tribe
+	 *            Index of the tribe.
+	 * @return Scent of the cell, 0 if it has none.
+	 */
+	public float getScentLevel(int index, int tribe) {
+		if (tribeScent != null)
+			return tribeScent[index * tribes + tribe] & 0xFF;
+		return scentField != null ? scentField.get(index) : scent[index];
+	}
+
+	/**
+	 * Gives each tribe its own scent from now on, so that its ants only follow
+	 * the trails of their own tribe. The scent units of each tribe on each cell
+	 * are kept in a byte, the tribes of a cell next to each other, so the scent
+	 * of all the tribes on a cell is read together. A tribe has at most 255 units
+	 * on a cell, and the ones it would leave on top of them are not left. It is
+	 * done before the simulation runs.
+	 * 
+	 * @param count
+	 *            Number of tribes, from 1 to 256.
+	 * @throws IllegalArgumentException
+	 *             If there are too many tribes for the size of the field.
+	 * @throws IllegalStateException
+	 *             If the grid already has scent, or keeps it as levels.
+	 */
+	public void useTribeScent(int count) {
+		if (count < 1 || count > 256 || (long) size * size * count > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Cannot keep the scent of " + count + " tribes on a field of size " + size);
+		if (scentUnits > 0 || scentField != null)
+			throw new IllegalStateException("The field already has scent, or keeps it as levels");
+		tribes = count;
+		tribeScent = new byte[size * size * count];
+		scentTribes = new byte[scentTimes.length];
+	}
+
+	/**
+	 * Returns whether all the tribes follow the same scent units, which is the
+	 * only scent whose changes are logged for the copies of the planning threads.
+	 * 
+	 * @return If the scent is kept as units shared by all the tribes.
+	 */
+	public boolean sharesScent() {
+		return scentField == null && tribeScent == null;
+	}
+
+	/**
+	 * Keeps the scent as levels that decay and spread, instead of units with a
+	 * maximum life time, from now on. It is done before the simulation runs.
+	 * 
+	 * @param field
+	 *            The scent levels, of the size of the grid.
+	 * @throws IllegalStateException
+	 *             If the grid already has scent units.
+	 */
+	public void useScentField(ScentField field) {
+		if (scentUnits > 0)
+			throw new IllegalStateException("The field already has scent units");
+		scentField = field;
+	}
+
+	/**
+	 * Gives the scent levels of the cells.
+	 * 
+	 * @return The scent levels, null if the scent is kept as units.
+	 */
+	public ScentField getScentField() {
+		return scentField;
+	}
+
+	/**
+	 * Add one scent unit at a given time point to the cell at the given index, as
+	 * a unit of the first tribe if the tribes have their own scent.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param time
+	 *            Time in which the scent will be added.
+	 * @return Whether the unit was added.
+	 */
+	public boolean addScent(int index, int time) {
+		return addScent(index, time, 0);
+	}
+
+	/**
+	 * Add one scent unit of a tribe at a given time point to the cell at the
+	 * given index. The unit is appended to the ring buffers of the grid, which
+	 * are only expanded when they are full, so a deposit takes constant time.
+	 * Time points must be given in non-decreasing order, as the simulation does.
+	 * The tribe only matters if the tribes have their own scent, in which case
+	 * nothing is added if the tribe already has 255 units on the cell.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param time
+	 *            Time in which the scent will be added.
+	 * @param tribe
+	 *            Index of the tribe.
+	 * @return Whether the unit was added.
+	 */
+	public boolean addScent(int index, int time, int tribe) {
+		if (scentField != null) { // A unit of scent is added to the level instead.
+			scentField.deposit(index, 1);
+			return true;
+		}
+		if (tribeScent != null) {
+			if (tribeScent[index * tribes + tribe] == -1) // The tribe has 255 units on the cell, the most a byte holds.
+				return false;
+			tribeScent[index * tribes + tribe]++;
+		}
+		if (scentUnits == scentTimes.length) { // Ring buffers are full, so double them.
+			int[] newTimes = new int[scentTimes.length * 2];
+			int[] newCells = new int[scentCells.length * 2];
+			int tail = scentTimes.length - scentHead;
+			System.arraycopy(scentTimes, scentHead, newTimes, 0, tail);
+			System.arraycopy(scentTimes, 0, newTimes, tail, scentHead);
+			System.arraycopy(scentCells, scentHead, newCells, 0, tail);
+			System.arraycopy(scentCells, 0, newCells, tail, scentHead);
+			if (scentTribes != null) {
+				byte[] newTribes = new byte[scentTribes.length * 2];
+				System.arraycopy(scentTribes, scentHead, newTribes, 0, tail);
+				System.arraycopy(scentTribes, 0, newTribes, tail, scentHead);
+				scentTribes = newTribes;
+			}
+			scentTimes = newTimes;
+			scentCells = newCells;
+			scentHead = 0;
+		}
+		int last = (scentHead + scentUnits) & (scentTimes.length - 1);
+		scentTimes[last] = time; // Add new scent unit after the newest.
+		scentCells[last] = index;
+		if (scentTribes != null)
+			scentTribes[last] = (byte) tribe;
+		scentUnits++;
+		scent[index]++;
+		occupied[index >>> 6] |= 1L << index;
+		if (scentChanges != null)
+			logScentChange(index);
+		return true;
+	}
+
+	/**
+	 * Remove all the scent units of the grid that have evaporated. For a scent unit
+	 * to be evaporated, the time between the current time and the time that the
+	 * anointing was done is greater than the elapsed time. Since every unit lives
+	 * for the same time and units are kept in the order they were anointed, they
+	 * also evaporate in that order, so only the units that evaporate at this time
+	 * are visited and the cost does not depend on the size of the grid.
 	 * 
 	 * @param time
 	 *            Current point in time.
@@ -91,23 +851,183 @@ public class CellGrid {
 	 *            Maximum life time of a scent.
 	 */
 	public void updateScent(int time, int elapsed) {
-		for (int i = 0; i < size; i++)
-			for (int j = 0; j < size; j++)
-				grid[i][j].updateScent(time, elapsed);
+		if (scentField != null) { // Scent levels decay and spread instead.
+			updateScentLevels(null);
+			return;
+		}
+		int mask = scentTimes.length - 1;
+		while (scentUnits > 0 && time - scentTimes[scentHead] > elapsed) { // Drop evaporated scents.
+			if (--scent[scentCells[scentHead]] == 0)
+				track(scentCells[scentHead]);
+			if (tribeScent != null)
+				tribeScent[scentCells[scentHead] * tribes + (scentTribes[scentHead] & 0xFF)]--;
+			if (heat != null)
+				heat.evaporated(scentCells[scentHead], time - scentTimes[scentHead]);
+			if (scentChanges != null)
+				logScentChange(scentCells[scentHead]);
+			scentHead = (scentHead + 1) & mask;
+			scentUnits--;
+		}
+	}
+
+	/**
+	 * Decays and spreads the scent levels of the grid by one point in time, and
+	 * adds the levels that are left to the heatmap, if there is one.
+	 * 
+	 * @param pool
+	 *            Threads that update the levels, null to update them on the
+	 *            calling thread.
+	 * @return Number of cells whose scent became too faint and was taken away.
+	 */
+	public int updateScentLevels(ForkJoinPool pool) {
+		int flushed = scentField.update(pool);
+		if (heat != null)
+			heat.addLevels(scentField);
+		return flushed;
 	}
 
 	/**
-	 * Returns whether all the seeds have been collected. For doing this, we simply
-	 * check that any non-nest cell has any food on it.
+	 * Starts counting the scent-ticks of the scent units in a heatmap as they
+	 * evaporate, or of the scent levels at the end of each point in time.
+	 * 
+	 * @param heatmap
+	 *            The heatmap.
+	 */
+	public void accumulateScentTo(Heatmap heatmap) {
+		heat = heatmap;
+	}
+
+	/**
+	 * Adds to each cell the scent-ticks of its scent units that have not
+	 * evaporated yet, as if they evaporated after the given point in time.
+	 * 
+	 * @param ticks
+	 *            Scent-ticks of each cell.
+	 * @param time
+	 *            Last point in time that has been run.
+	 */
+	public void addScentAges(long[] ticks, int time) {
+		int mask = scentTimes.length - 1;
+		for (int k = 0; k < scentUnits; k++) {
+			int unit = (scentHead + k) & mask;
+			ticks[scentCells[unit]] += time + 1 - scentTimes[unit];
+		}
+	}
+
+	/**
+	 * Copies the scent of a range of consecutive cells to the given array.
+	 * 
+	 * @param from
+	 *            Index of the first cell.
+	 * @param dest
+	 *            Array the scent is copied to.
+	 * @param destPos
+	 *            Position in the array of the scent of the first cell.
+	 * @param length
+	 *            Number of cells.
+	 */
+	public void copyScent(int from, int[] dest, int destPos, int length) {
+		System.arraycopy(scent, from, dest, destPos, length);
+	}
+
+	/**
+	 * Packs what is drawn of each cell into one number: whether it has a nest,
+	 * food, a wall or water in the PACKED_NEST, PACKED_FOOD, PACKED_WALL and
+	 * PACKED_WATER bits and its scent, capped at PACKED_SCENT, in the rest. A
+	 * scent level is packed in PACKED_LEVEL_STEPS steps per unit. The cells are
+	 * packed in the order of their indices, so a copy of the field that
+	 * can be drawn by another thread takes a single array.
+	 * 
+	 * @param cells
+	 *            Array of at least NxN numbers the cells are packed into.
+	 */
+	public void pack(int[] cells) {
+		for (int i = 0; i < size * size; i++)
+			cells[i] = Math.min(scent[i], PACKED_SCENT) | (food[i] > 0 ? PACKED_FOOD : 0) | (nest[i] ? PACKED_NEST : 0);
+		if (scentField != null)
+			for (int i = 0; i < size * size; i++)
+				cells[i] |= (int) Math.min(scentField.get(i) * PACKED_LEVEL_STEPS, PACKED_SCENT);
+		if (terrain != null)
+			for (int i = 0; i < size * size; i++)
+				cells[i] |= terrain[i] == WALL ? PACKED_WALL : terrain[i] == WATER ? PACKED_WATER : 0;
+	}
+
+	/**
+	 * Starts keeping a log of the cells whose scent changes, so that copies of the
+	 * scent can be brought up to date without reading the whole grid.
+	 */
+	public void logScentChanges() {
+		if (scentChanges == null)
+			scentChanges = new int[16];
+	}
+
+	/**
+	 * Gives the log of the cells whose scent changed since it was last cleared.
+	 * Only the first scentChangeCount() entries are valid, and a cell may appear
+	 * more than once.
+	 * 
+	 * @return Indices of the cells whose scent changed.
+	 */
+	public int[] scentChanges() {
+		return scentChanges;
+	}
+
+	/**
+	 * Gives the number of scent units of the grid that have not evaporated.
+	 * 
+	 * @return Number of scent units, 0 if the scent is kept as levels.
+	 */
+	public int scentUnitCount() {
+		return scentUnits;
+	}
+
+	/**
+	 * Gives the number of entries in the log of scent changes.
+	 * 
+	 * @return Number of logged scent changes.
+	 */
+	public int scentChangeCount() {
+		return scentChangeCount;
+	}
+
+	/**
+	 * Empties the log of scent changes.
+	 */
+	public void clearScentChanges() {
+		scentChangeCount = 0;
+	}
+
+	/**
+	 * Adds the cell at the given index to the log of scent changes.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	private void logScentChange(int index) {
+		if (scentChangeCount == scentChanges.length)
+			scentChanges = Arrays.copyOf(scentChanges, scentChanges.length * 2);
+		scentChanges[scentChangeCount++] = index;
+	}
+
+	/**
+	 * Returns whether all the seeds have been collected, which means that no
+	 * non-nest cell has any food on it. The seeds left on such cells are counted
+	 * as they are placed and picked up, so no cell has to be checked.
 	 * 
 	 * @return If all the seeds are at nest-cells only.
 	 */
 	public boolean allSeedsCollected() {
-		for (int i = 0; i < size; i++)
-			for (int j = 0; j < size; j++)
-				if (!grid[i][j].withNest() && grid[i][j].hasFood())
-					return false;
-		return true;
+		return seedsLeft <= 0;
+	}
+
+	/**
+	 * Returns whether the simulation on the grid has finished, which happens when
+	 * all the seeds have been collected and no ant carries a seed any more.
+	 * 
+	 * @return If all the seeds have been delivered.
+	 */
+	public boolean finished() {
+		return seedsLeft <= 0 && carriers == 0;
 	}
 
 	/**
@@ -115,17 +1035,116 @@ public class CellGrid {
 	 * as a string.
 	 */
 	public String toString() {
-		String s = "\nA " + size + "x" + size + " Terain as follows:\n";
-		for (int x = 0; x < size; x++)
-			for (int y = 0; y < size; y++)
-				if (grid[x][y].hasFood() || grid[x][y].withNest() || grid[x][y].getScent() > 0 || grid[x][y].hasAnts())
-					s += "Cell(" + x + "," + y + "):\n" + grid[x][y];
-		s += "\n\nAll other cells are empty.\n\n";
-		return s;
+		StringBuilder s = new StringBuilder();
+		try {
+			dump(s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // A StringBuilder does not throw it.
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes the same text as toString() to the given output as it goes, instead
+	 * of building it all first. Only the cells that have food, a nest, scent or
+	 * ants on them are visited, through a bit set of those cells that is kept up
+	 * to date as they change, so the time it takes depends on the number of such
+	 * cells and not on the size of the grid. Scent levels spread to cells
+	 * without changing them one at a time, so when they are used the levels of
+	 * the cells are looked at as well.
+	 * 
+	 * @param out
+	 *            Where the text is written.
+	 * @throws IOException
+	 *             If the output cannot be written.
+	 */
+	public void dump(Appendable out) throws IOException {
+		out.append("\nA ").append(Integer.toString(size)).append('x').append(Integer.toString(size))
+				.append(" Terain as follows:\n");
+		for (int w = 0; w < occupied.length; w++)
+			for (long bits = occupied[w] | scented(w); bits != 0; bits &= bits - 1) {
+				int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+				out.append("Cell(").append(Integer.toString(i / size)).append(',').append(Integer.toString(i % size))
+						.append("):\n");
+				dumpCell(out, i);
+			}
+		out.append("\n\nAll other cells are empty.\n\n");
 	}
 
 	/**
-	 * Gives the graphic presentation of the CellGrid Object.
+	 * Gives a bit for each of the 64 cells of a word of the index of non-empty
+	 * cells that has a scent level, 0 if scent levels are not used.
+	 */
+	private long scented(int word) {
+		if (scentField == null)
+			return 0;
+		long bits = 0;
+		for (int i = word << 6, end = Math.min(i + 64, size * size); i < end; i++)
+			if (scentField.get(i) > 0)
+				bits |= 1L << i;
+		return bits;
+	}
+
+	/**
+	 * Writes the text that describes the cell at the given index, the same as
+	 * Cell.toString(), to the given output.
+	 * 
+	 * @param out
+	 *            Where the text is written.
+	 * @param index
+	 *            Index of the cell.
+	 * @throws IOException
+	 *             If the output cannot be written.
+	 */
+	public void dumpCell(Appendable out, int index) throws IOException {
+		boolean hasNest = nest[index];
+		int foodAmount = food[index];
+		out.append("\tCell that ");
+		if (hasNest)
+			out.append("has a nest.\n");
+		else
+			out.append("does not have a nest.\n");
+		if (hasNest && foodAmount > 0)
+			out.append("\t- The nest has ").append(Integer.toString(foodAmount)).append(" stored seeds.\n");
+		if (!hasNest && foodAmount > 0)
+			out.append("\t- The cell has ").append(Integer.toString(foodAmount)).append(" seeds for collection.\n");
+		if (foodAmount == 0)
+			out.append("\t- There are no seeds.\n");
+		if (scent[index] > 0)
+			out.append("\t- Currently it is annotated with ").append(Integer.toString(scent[index]))
+					.append(" units of scent.\n");
+		if (scentField != null && scentField.get(index) > 0)
+			out.append("\t- Currently its scent level is ").append(Float.toString(scentField.get(index))).append(".\n");
+		if (isBlocked(index))
+			out.append(terrain[index] == WALL ? "\t- It is a wall, which ants cannot cross.\n"
+					: "\t- It is water, which ants cannot cross.\n");
+		if (ants[index] == 0)
+			out.append("\t- At present there are no ants on it.\n");
+		else
+			out.append("\t- At present there are ").append(Integer.toString(ants[index])).append(" ants on it.\n");
+	}
+
+	/**
+	 * Adds the cell at the given index to the cells that are redrawn by
+	 * drawChanges(), after its food, nest or obstacle changed in a way that
+	 * shows. Nothing is kept until the grid has been drawn.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	private void changed(int index) {
+		if (redraw == null || (redrawn[index >>> 6] & 1L << index) != 0)
+			return;
+		redrawn[index >>> 6] |= 1L << index;
+		if (redrawCount == redraw.length)
+			redraw = Arrays.copyOf(redraw, redraw.length * 2);
+		redraw[redrawCount++] = index;
+	}
+
+	/**
+	 * Gives the graphic presentation of the CellGrid Object. From then on, the
+	 * cells whose food or nest change are kept, so that drawChanges() can redraw
+	 * only them.
 	 */
 	public void draw() {
 		StdDraw.setXscale(0.0, (double) size);
@@ -139,29 +1158,84 @@ public class CellGrid {
 			StdDraw.line(0.0, (double) d, (double) size, (double) d);
 
 		for (int i = 0; i < size; i++)
-			for (int j = 0; j < size; j++) {
-				// Draws the white nest with the black food source on top.
-				if (getCell(i, j).withNest() && getCell(i, j).hasFood()) {
-					StdDraw.setPenRadius(0.8 / size);
-					StdDraw.setPenColor(StdDraw.WHITE);
-					StdDraw.point((double) i, (double) j);
-					StdDraw.setPenRadius(0.6 / size);
-					StdDraw.setPenColor(StdDraw.BLACK);
-					StdDraw.point((double) i, (double) j);
-				}
-				// Draws the white nest.
-				if (getCell(i, j).withNest() && !getCell(i, j).hasFood()) {
-					StdDraw.setPenRadius(0.8 / size);
-					StdDraw.setPenColor(StdDraw.WHITE);
-					StdDraw.point((double) i, (double) j);
-				}
-				// Draws the black food source.
-				if (getCell(i, j).hasFood() && !getCell(i, j).withNest()) {
-					StdDraw.setPenRadius(0.6 / size);
-					StdDraw.setPenColor(StdDraw.BLACK);
-					StdDraw.point((double) i, (double) j);
-				}
-			}
+			for (int j = 0; j < size; j++)
+				drawContents(i, j);
+
+		if (redraw == null) {
+			redraw = new int[16];
+			redrawn = new long[occupied.length];
+		}
+		clearChanges();
+	}
+
+	/**
+	 * Redraws only the cells whose food or nest changed since the grid was last
+	 * drawn, so the cost of a frame follows the activity on the field rather than
+	 * its size. The rest of the drawing, with the background and the lines, is
+	 * left as it is on the canvas, so nothing else may be drawn on it in between.
+	 * If the grid has not been drawn yet, the whole of it is drawn.
+	 */
+	public void drawChanges() {
+		if (redraw == null) {
+			draw();
+			return;
+		}
+		for (int k = 0; k < redrawCount; k++) {
+			int i = redraw[k] / size, j = redraw[k] % size;
+			// Each cell is drawn around the point where its two lines cross, so its
+			// square is cleared and the two lines are drawn again across it.
+			StdDraw.setPenColor(StdDraw.GRAY.darker().darker());
+			StdDraw.filledSquare((double) i, (double) j, 0.5);
+			StdDraw.setPenColor(StdDraw.GRAY.brighter().brighter());
+			StdDraw.setPenRadius(0.05 / size);
+			StdDraw.line(i - 0.5, (double) j, i + 0.5, (double) j);
+			StdDraw.line((double) i, j - 0.5, (double) i, j + 0.5);
+			drawContents(i, j);
+		}
+		clearChanges();
+	}
+
+	/**
+	 * Empties the list of the cells that are redrawn by drawChanges().
+	 */
+	private void clearChanges() {
+		for (int k = 0; k < redrawCount; k++)
+			redrawn[redraw[k] >>> 6] &= ~(1L << redraw[k]);
+		redrawCount = 0;
+	}
+
+	/**
+	 * Draws the obstacle, the nest and the food source of the cell (i,j), if it
+	 * has them.
+	 */
+	private void drawContents(int i, int j) {
+		int index = index(i, j);
+		// Draws the brown wall or the blue water as a square inside the lines.
+		if (isBlocked(index)) {
+			StdDraw.setPenColor(terrain[index] == WALL ? StdDraw.ORANGE.darker().darker() : StdDraw.BOOK_BLUE);
+			StdDraw.filledSquare((double) i, (double) j, 0.45);
+		}
+		// Draws the white nest with the black food source on top.
+		if (nest[index] && food[index] > 0) {
+			StdDraw.setPenRadius(0.8 / size);
+			StdDraw.setPenColor(StdDraw.WHITE);
+			StdDraw.point((double) i, (double) j);
+			StdDraw.setPenRadius(0.6 / size);
+			StdDraw.setPenColor(StdDraw.BLACK);
+			StdDraw.point((double) i, (double) j);
+		}
+		// Draws the white nest.
+		if (nest[index] && food[index] <= 0) {
+			StdDraw.setPenRadius(0.8 / size);
+			StdDraw.setPenColor(StdDraw.WHITE);
+			StdDraw.point((double) i, (double) j);
+		}
+		// Draws the black food source.
+		if (food[index] > 0 && !nest[index]) {
+			StdDraw.setPenRadius(0.6 / size);
+			StdDraw.setPenColor(StdDraw.BLACK);
+			StdDraw.point((double) i, (double) j);
+		}
 	}
 
 }
\ No newline at end of file
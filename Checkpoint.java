@@ -0,0 +1,395 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -resume run.ckpt
+ *
+ * Implementation of the Checkpoint Object.
+ *
+ */
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class Checkpoint {
+
+	private static final int MAGIC = 0x414E5443; // "ANTC"
+	private static final int VERSION = 5; // Version of the format, 5 since the obstacles that are due later are kept.
+
+	private int time; // Last point in time that had been run.
+	private int scentDuration; // Maximum life time of a scent.
+	private CellGrid grid; // Copy of the field.
+	private String[] names; // Colour of each tribe.
+	private int[][] nests; // Coordinates of the nest of each tribe.
+	private int[] carrying; // Number of ants of each tribe that carry a seed.
+	private long[] delivered; // Number of seeds delivered to the nest of each tribe.
+	private int[][] antIds; // IDs of the ants of each tribe.
+	private int[][] antStates; // State of the ants of each tribe, as saved by Ant.saveState().
+	private long[][] antRandoms; // Random state of the ants of each tribe.
+	private int[][] scheduled; // Rectangles of obstacles that are due later, as Simulation.schedule() takes them.
+
+	/**
+	 * Takes a copy of the whole state of a simulation between two points in time.
+	 * Only arrays are copied, so this is quick, and the copy can then be written
+	 * by another thread while the simulation goes on.
+	 * 
+	 * @param sim
+	 *            The simulation, which must not be running a point in time.
+	 * @return The copy of the state.
+	 */
+	public static Checkpoint capture(Simulation sim) {
+		Checkpoint cp = new Checkpoint();
+		cp.time = sim.getTime();
+		cp.scentDuration = sim.getScentDuration();
+		cp.grid = new CellGrid(sim.getGrid());
+		cp.scheduled = sim.getScheduled();
+		Colony[] colonies = sim.getColonies();
+		int count = colonies.length;
+		cp.names = new String[count];
+		cp.nests = new int[count][];
+		cp.carrying = new int[count];
+		cp.delivered = new long[count];
+		cp.antIds = new int[count][];
+		cp.antStates = new int[count][];
+		cp.antRandoms = new long[count][];
+		for (int c = 0; c < count; c++) {
+			Colony col = colonies[c];
+			Ant[] ants = col.getAnts();
+			cp.names[c] = col.getName();
+			cp.nests[c] = col.getNestPos().clone();
+			cp.carrying[c] = col.antsCarrying();
+			cp.delivered[c] = col.seedsDelivered();
+			cp.antIds[c] = new int[ants.length];
+			cp.antStates[c] = new int[ants.length * Ant.STATE_SIZE];
+			cp.antRandoms[c] = new long[ants.length];
+			for (int i = 0; i < ants.length; i++) {
+				cp.antIds[c][i] = ants[i].getId();
+				ants[i].saveState(cp.antStates[c], cp.antRandoms[c], i);
+			}
+		}
+		return cp;
+	}
+
+	/**
+	 * Writes the checkpoint to a file. It is first written next to it and then
+	 * moved in its place, so the file always holds a whole checkpoint.
+	 * 
+	 * @param path
+	 *            The checkpoint file.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public void write(Path path) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (Writer out = new Writer(temp)) {
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(time);
+			out.putInt(scentDuration);
+			grid.writeState(out);
+			out.putInt(names.length);
+			for (int c = 0; c < names.length; c++) {
+				out.putString(names[c]);
+				out.putInt(nests[c][0]);
+				out.putInt(nests[c][1]);
+				out.putInt(carrying[c]);
+				out.putLong(delivered[c]);
+				out.putInt(antIds[c].length);
+				out.putInts(antIds[c], 0, antIds[c].length);
+				out.putInts(antStates[c], 0, antStates[c].length);
+				out.putLongs(antRandoms[c], 0, antRandoms[c].length);
+			}
+			out.putInt(scheduled.length);
+			for (int[] rect : scheduled)
+				out.putInts(rect, 0, rect.length);
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a checkpoint file and rebuilds the simulation, which goes on exactly
+	 * as the one that was checkpointed would have, no matter how many threads
+	 * either of them uses.
+	 * 
+	 * @param path
+	 *            The checkpoint file.
+	 * @param threads
+	 *            Number of threads that plan the steps.
+	 * @return The simulation, ready to run the next point in time.
+	 * @throws IOException
+	 *             If the file cannot be read or is not a valid checkpoint.
+	 */
+	public static Simulation resume(Path path, int threads) throws IOException {
+		try (Reader in = new Reader(path)) {
+			if (in.getInt() != MAGIC)
+				throw new IOException(path + " is not a checkpoint file");
+			int version = in.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported checkpoint version " + version);
+			int time = in.getInt();
+			int scentDuration = in.getInt();
+			CellGrid grid = new CellGrid(in);
+			Colony[] colonies = new Colony[in.getInt()];
+			for (int c = 0; c < colonies.length; c++) {
+				String name = in.getString();
+				int nestX = in.getInt();
+				int nestY = in.getInt();
+				int carrying = in.getInt();
+				long delivered = in.getLong();
+				int count = in.getInt();
+				int[] ids = new int[count];
+				int[] states = new int[count * Ant.STATE_SIZE];
+				long[] randoms = new long[count];
+				in.getInts(ids, 0, count);
+				in.getInts(states, 0, states.length);
+				in.getLongs(randoms, 0, count);
+				colonies[c] = new Colony(grid, name, nestX, nestY, ids, carrying, delivered);
+				Ant[] ants = colonies[c].getAnts();
+				for (int i = 0; i < count; i++)
+					ants[i].restoreState(states, randoms, i);
+			}
+			Simulation sim = new Simulation(grid, colonies, scentDuration, threads, time);
+			int count = in.getInt();
+			if (count < 0)
+				throw new IOException("Invalid obstacles in checkpoint file");
+			for (int i = 0; i < count; i++) {
+				int[] rect = new int[6];
+				in.getInts(rect, 0, rect.length);
+				int size = grid.getSize();
+				if (Math.min(rect[0], rect[2]) < 0 || Math.max(rect[0], rect[2]) >= size || Math.min(rect[1], rect[3]) < 0
+						|| Math.max(rect[1], rect[3]) >= size || rect[5] < CellGrid.OPEN || rect[5] > CellGrid.WATER)
+					throw new IOException("Invalid obstacles in checkpoint file");
+				sim.schedule(rect);
+			}
+			return sim;
+		}
+	}
+
+	/**
+	 * Writes numbers to a file through a buffer.
+	 */
+	static class Writer implements Closeable {
+
+		private FileChannel channel; // The file.
+		private ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20); // Numbers not yet written to the file.
+
+		Writer(Path path) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		/**
+		 * Makes room in the buffer for the given number of bytes.
+		 */
+		private void room(int bytes) throws IOException {
+			if (buf.remaining() >= bytes)
+				return;
+			buf.flip();
+			while (buf.hasRemaining())
+				channel.write(buf);
+			buf.clear();
+		}
+
+		void putInt(int value) throws IOException {
+			room(4);
+			buf.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			room(8);
+			buf.putLong(value);
+		}
+
+		void putString(String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			putInt(bytes.length);
+			for (byte b : bytes) {
+				room(1);
+				buf.put(b);
+			}
+		}
+
+		void putInts(int[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				room(4);
+				int n = Math.min(length, buf.remaining() / 4);
+				buf.asIntBuffer().put(values, from, n);
+				buf.position(buf.position() + 4 * n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		void putLongs(long[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				room(8);
+				int n = Math.min(length, buf.remaining() / 8);
+				buf.asLongBuffer().put(values, from, n);
+				buf.position(buf.position() + 8 * n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		void putBooleans(boolean[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				room(1);
+				int n = Math.min(length, buf.remaining());
+				for (int i = 0; i < n; i++)
+					buf.put(values[from + i] ? (byte) 1 : (byte) 0);
+				from += n;
+				length -= n;
+			}
+		}
+
+		void putFloats(float[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				room(4);
+				int n = Math.min(length, buf.remaining() / 4);
+				buf.asFloatBuffer().put(values, from, n);
+				buf.position(buf.position() + 4 * n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		void putBytes(byte[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				room(1);
+				int n = Math.min(length, buf.remaining());
+				buf.put(values, from, n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				room(buf.capacity());
+				channel.force(false);
+			} finally {
+				channel.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Reads numbers from a file through a buffer.
+	 */
+	static class Reader implements Closeable {
+
+		private FileChannel channel; // The file.
+		private ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20); // Bytes read from the file and not yet used.
+
+		Reader(Path path) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			buf.flip();
+		}
+
+		/**
+		 * Makes sure the buffer holds at least the given number of bytes.
+		 */
+		private void fill(int bytes) throws IOException {
+			if (buf.remaining() >= bytes)
+				return;
+			buf.compact();
+			while (buf.position() < bytes)
+				if (channel.read(buf) < 0)
+					throw new EOFException("Unexpected end of checkpoint file");
+			buf.flip();
+		}
+
+		int getInt() throws IOException {
+			fill(4);
+			return buf.getInt();
+		}
+
+		long getLong() throws IOException {
+			fill(8);
+			return buf.getLong();
+		}
+
+		String getString() throws IOException {
+			int length = getInt();
+			if (length < 0 || length > buf.capacity())
+				throw new IOException("Invalid string in checkpoint file");
+			byte[] bytes = new byte[length];
+			fill(length);
+			buf.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		void getInts(int[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				fill(4);
+				int n = Math.min(length, buf.remaining() / 4);
+				buf.asIntBuffer().get(values, from, n);
+				buf.position(buf.position() + 4 * n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		void getLongs(long[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				fill(8);
+				int n = Math.min(length, buf.remaining() / 8);
+				buf.asLongBuffer().get(values, from, n);
+				buf.position(buf.position() + 8 * n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		void getBooleans(boolean[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				fill(1);
+				int n = Math.min(length, buf.remaining());
+				for (int i = 0; i < n; i++)
+					values[from + i] = buf.get() != 0;
+				from += n;
+				length -= n;
+			}
+		}
+
+		void getFloats(float[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				fill(4);
+				int n = Math.min(length, buf.remaining() / 4);
+				buf.asFloatBuffer().get(values, from, n);
+				buf.position(buf.position() + 4 * n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		void getBytes(byte[] values, int from, int length) throws IOException {
+			while (length > 0) {
+				fill(1);
+				int n = Math.min(length, buf.remaining());
+				buf.get(values, from, n);
+				from += n;
+				length -= n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -file world.ants -checkpoint run.ckpt -every 100000
+ *
+ * Implementation of the Checkpointer Object.
+ *
+ */
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Checkpointer {
+
+	private Path path; // The checkpoint file.
+	private ExecutorService writer; // Thread that writes the checkpoints.
+	private Future<?> pending; // Checkpoint that is being written, null if there is none.
+
+	/**
+	 * Checkpointer Object constructor. The checkpoints are written to the given
+	 * file by a thread of their own, each one replacing the one before it.
+	 * 
+	 * @param path
+	 *            The checkpoint file.
+	 */
+	public Checkpointer(Path path) {
+		this.path = path;
+		writer = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "checkpoint-writer");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Takes a checkpoint of the simulation, which must not be running a point in
+	 * time. Its state is copied and the copy is written in the background, so the
+	 * simulation only stops for the copy, unless the previous checkpoint is still
+	 * being written, in which case it is waited for.
+	 * 
+	 * @param sim
+	 *            The simulation.
+	 * @throws IOException
+	 *             If the previous checkpoint could not be written.
+	 */
+	public void checkpoint(Simulation sim) throws IOException {
+		await();
+		Checkpoint cp = Checkpoint.capture(sim);
+		pending = writer.submit(() -> {
+			cp.write(path);
+			return null;
+		});
+	}
+
+	/**
+	 * Waits for the checkpoint that is being written, if any.
+	 * 
+	 * @throws IOException
+	 *             If it could not be written.
+	 */
+	public void await() throws IOException {
+		if (pending == null)
+			return;
+		try {
+			pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing checkpoint");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Could not write checkpoint", e.getCause());
+		} finally {
+			pending = null;
+		}
+	}
+
+	/**
+	 * Waits for the checkpoint that is being written and stops the thread that
+	 * writes them.
+	 * 
+	 * @throws IOException
+	 *             If the checkpoint could not be written.
+	 */
+	public void close() throws IOException {
+		try {
+			await();
+		} finally {
+			writer.shutdown();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar AntColonies.java
+ * Execution command: java -classpath .:stdlib.jar AntColonies 10 20 R 0
+ *
+ * Implementation of the Colony Object.
+ *
+ */
+public class Colony {
+
+	private String name; // The colour of the tribe.
+	private int[] nestPos; // Coordinates of its nest.
+	private Ant[] ants; // The ants of the tribe.
+	private int carrying; // Number of its ants that currently carry a seed.
+	private long delivered; // Number of seeds its ants have delivered to the nest.
+
+	/**
+	 * Colony Object constructor. The nest is placed on the field and all of the
+	 * ants of the tribe are created in it.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param col
+	 *            Tribe colour.
+	 * @param nestX
+	 *            Row of the nest.
+	 * @param nestY
+	 *            Column of the nest.
+	 * @param antIds
+	 *            Array with the IDs of the ants of the tribe.
+	 * @param seed
+	 *            Seed of the simulation.
+	 */
+	public Colony(CellGrid grid, String col, int nestX, int nestY, int[] antIds, long seed) {
+		name = col;
+		nestPos = new int[] { nestX, nestY };
+		ants = new Ant[antIds.length];
+		for (int i = 0; i < antIds.length; i++)
+			ants[i] = new Ant(grid, antIds[i], this, seed);
+		grid.putNest(nestX, nestY, antIds);
+	}
+
+	/**
+	 * Creates a tribe that is resumed from a checkpoint. The field already has the
+	 * nest and the ants on it, so it is left as it is, and the state of the ants is
+	 * restored afterwards.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param col
+	 *            Tribe colour.
+	 * @param nestX
+	 *            Row of the nest.
+	 * @param nestY
+	 *            Column of the nest.
+	 * @param antIds
+	 *            Array with the IDs of the ants of the tribe.
+	 * @param carrying
+	 *            Number of its ants that carry a seed.
+	 * @param delivered
+	 *            Number of seeds its ants have delivered to the nest.
+	 */
+	Colony(CellGrid grid, String col, int nestX, int nestY, int[] antIds, int carrying, long delivered) {
+		name = col;
+		nestPos = new int[] { nestX, nestY };
+		ants = new Ant[antIds.length];
+		for (int i = 0; i < antIds.length; i++)
+			ants[i] = new Ant(grid, antIds[i], this, 0);
+		this.carrying = carrying;
+		this.delivered = delivered;
+	}
+
+	/**
+	 * Creates a tribe like another one, on a copy of the field of the other one
+	 * that was made before it ran, so that the same scenario can be run again
+	 * with another seed. The copy already has the nest and the ants on it.
+	 * 
+	 * @param grid
+	 *            Copy of the NxN cell grid of the other tribe.
+	 * @param other
+	 *            The tribe that is copied, which has not moved yet.
+	 * @param seed
+	 *            Seed of the simulation.
+	 */
+	Colony(CellGrid grid, Colony other, long seed) {
+		name = other.name;
+		nestPos = other.nestPos.clone();
+		ants = new Ant[other.ants.length];
+		for (int i = 0; i < ants.length; i++)
+			ants[i] = new Ant(grid, other.ants[i].getId(), this, seed);
+	}
+
+	/**
+	 * Called by an ant of the tribe when it picks up a seed.
+	 */
+	public void pickedUp() {
+		carrying++;
+	}
+
+	/**
+	 * Called by an ant of the tribe when it unloads a seed at the nest.
+	 */
+	public void delivered() {
+		carrying--;
+		delivered++;
+	}
+
+	/**
+	 * Gives the number of ants of the tribe that currently carry a seed.
+	 * 
+	 * @return Number of ants carrying food.
+	 */
+	public int antsCarrying() {
+		return carrying;
+	}
+
+	/**
+	 * Gives the number of seeds the ants of the tribe have delivered to the nest.
+	 * 
+	 * @return Number of seeds delivered.
+	 */
+	public long seedsDelivered() {
+		return delivered;
+	}
+
+	/**
+	 * Return the tribe colour.
+	 * 
+	 * @return Tribe colour.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gives the coordinates of the nest of the tribe.
+	 * 
+	 * @return Nest position.
+	 */
+	public int[] getNestPos() {
+		return nestPos;
+	}
+
+	/**
+	 * Gives the ants of the tribe.
+	 * 
+	 * @return Ants of the tribe.
+	 */
+	public Ant[] getAnts() {
+		return ants;
+	}
+
+}
\ No newline at end of file
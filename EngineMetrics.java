@@ -0,0 +1,343 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 256 -nest 20,20,2000 -food 200,200,5000 -metrics metrics.csv -jmx true
+ *
+ * Implementation of the EngineMetrics Object.
+ *
+ */
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class EngineMetrics implements EngineMetricsMBean {
+
+	public static final String NAME = "AntColonies:type=EngineMetrics"; // Name of the MBean.
+	public static final String CSV_HEADER = "time,ticks,wallMs,moves,pickups,deliveries,scentDeposits,scentExpiries,"
+			+ "moveP50Ns,moveP99Ns,moveMaxNs,scentP50Ns,scentP99Ns,scentMaxNs,renders,renderP50Ns,renderP99Ns,renderMaxNs";
+
+	private LatencyHistogram moveTimes = new LatencyHistogram(); // Time the ants take to plan and commit a step.
+	private LatencyHistogram scentTimes = new LatencyHistogram(); // Time the scent takes to be updated.
+	private LatencyHistogram renderTimes = new LatencyHistogram(); // Time the field takes to be rendered.
+	private long moves; // Steps of an ant onto another cell.
+	private long pickups; // Seeds picked up.
+	private long deliveries; // Seeds delivered to a nest.
+	private long deposits; // Scent left by an ant.
+	private long expiries; // Scent units that evaporated, or cells whose scent level became too faint.
+	private long ticks; // Points in time measured.
+	private AtomicLongArray published = new AtomicLongArray(6); // Ticks and counts of the last point in time, for other threads.
+	private volatile int time; // Last point in time measured.
+	private boolean registered; // Whether the MBean is registered.
+	private BufferedWriter csv; // CSV file a line is written to every so often, null if there is none.
+	private long csvNanos; // When the last line was written.
+	private long[] csvCounts = new long[6]; // Ticks and counts at the last line.
+	private long[][] csvBuckets = new long[3][LatencyHistogram.BUCKETS]; // Buckets of the histograms at the last line.
+
+	/**
+	 * EngineMetrics Object constructor. The counts are kept in plain fields,
+	 * which are only written by the thread that runs the simulation, as the
+	 * steps are committed one ant at a time, so counting only takes an addition.
+	 * At the end of each point in time its durations are recorded and the
+	 * counts are published for other threads, such as the JMX ones, which
+	 * therefore see them as they were at the end of a point in time.
+	 */
+	public EngineMetrics() {
+	}
+
+	/**
+	 * Counts an ant moving onto another cell.
+	 */
+	public void moved() {
+		moves++;
+	}
+
+	/**
+	 * Counts a seed picked up.
+	 */
+	public void pickedUp() {
+		pickups++;
+	}
+
+	/**
+	 * Counts a seed delivered to a nest.
+	 */
+	public void delivered() {
+		deliveries++;
+	}
+
+	/**
+	 * Counts scent left by an ant.
+	 */
+	public void deposited() {
+		deposits++;
+	}
+
+	/**
+	 * Records a point in time that has been run.
+	 * 
+	 * @param at
+	 *            The point in time.
+	 * @param moveNanos
+	 *            Time the ants took to plan and commit their steps.
+	 * @param scentNanos
+	 *            Time the scent took to be updated.
+	 * @param expired
+	 *            Scent units that evaporated, or cells whose scent level became
+	 *            too faint and was taken away.
+	 */
+	public void ticked(int at, long moveNanos, long scentNanos, int expired) {
+		moveTimes.record(moveNanos);
+		scentTimes.record(scentNanos);
+		expiries += expired;
+		ticks++;
+		published.lazySet(0, ticks);
+		published.lazySet(1, moves);
+		published.lazySet(2, pickups);
+		published.lazySet(3, deliveries);
+		published.lazySet(4, deposits);
+		published.lazySet(5, expiries);
+		time = at;
+	}
+
+	/**
+	 * Gives the histogram rendering is timed in, which renderers on any thread
+	 * record to.
+	 * 
+	 * @return The histogram of rendering.
+	 */
+	public LatencyHistogram getRenderTimes() {
+		return renderTimes;
+	}
+
+	/**
+	 * Registers the metrics as an MBean of the platform, so that they can be
+	 * read with JConsole, VisualVM or any other JMX client.
+	 * 
+	 * @throws IOException
+	 *             If the MBean cannot be registered.
+	 */
+	public void register() throws IOException {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(NAME));
+			registered = true;
+		} catch (JMException e) {
+			throw new IOException("Cannot register " + NAME + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Starts writing the metrics to a CSV file, a header and then a line each
+	 * time writeCsv() is called, with the counts and the durations since the
+	 * line before.
+	 * 
+	 * @param path
+	 *            The CSV file.
+	 * @throws IOException
+	 *             If the file cannot be created.
+	 */
+	public void openCsv(Path path) throws IOException {
+		csv = Files.newBufferedWriter(path);
+		csv.write(CSV_HEADER);
+		csv.newLine();
+		csv.flush();
+		csvNanos = System.nanoTime();
+		csvCounts = counts();
+		moveTimes.copyCounts(csvBuckets[0]);
+		scentTimes.copyCounts(csvBuckets[1]);
+		renderTimes.copyCounts(csvBuckets[2]);
+	}
+
+	/**
+	 * Writes a line to the CSV file, unless there is none or no point in time
+	 * has been run since the last line. The line is flushed, so the file can be
+	 * followed while the simulation runs.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public void writeCsv() throws IOException {
+		if (csv == null || ticks == csvCounts[0])
+			return;
+		long now = System.nanoTime();
+		long[] counts = counts();
+		StringBuilder line = new StringBuilder();
+		line.append(time);
+		line.append(',').append(counts[0] - csvCounts[0]);
+		line.append(',').append((now - csvNanos) / 1000000);
+		for (int i = 1; i < counts.length; i++)
+			line.append(',').append(counts[i] - csvCounts[i]);
+		appendTimes(line, moveTimes, csvBuckets[0], false);
+		appendTimes(line, scentTimes, csvBuckets[1], false);
+		appendTimes(line, renderTimes, csvBuckets[2], true);
+		csv.write(line.toString());
+		csv.newLine();
+		csv.flush();
+		csvNanos = now;
+		csvCounts = counts;
+		moveTimes.copyCounts(csvBuckets[0]);
+		scentTimes.copyCounts(csvBuckets[1]);
+		renderTimes.copyCounts(csvBuckets[2]);
+	}
+
+	/**
+	 * Appends the median, the 99th percentile and the largest of the durations
+	 * of a histogram since the last line, with their number before them if
+	 * asked.
+	 */
+	private static void appendTimes(StringBuilder line, LatencyHistogram times, long[] since, boolean count) {
+		if (count) {
+			long n = 0;
+			for (int b = 0; b < since.length; b++)
+				n += since[b];
+			line.append(',').append(times.count() - n);
+		}
+		line.append(',').append(times.quantile(0.5, since));
+		line.append(',').append(times.quantile(0.99, since));
+		line.append(',').append(times.quantile(1, since));
+	}
+
+	/**
+	 * Gives the ticks and the counts, in the order of the columns of the CSV
+	 * file.
+	 */
+	private long[] counts() {
+		return new long[] { ticks, moves, pickups, deliveries, deposits, expiries };
+	}
+
+	/**
+	 * Writes a last line to the CSV file and closes it, and unregisters the
+	 * MBean.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public void close() throws IOException {
+		if (registered) {
+			registered = false;
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(NAME));
+			} catch (JMException e) {
+				// It was unregistered by someone else.
+			}
+		}
+		if (csv != null) {
+			try {
+				writeCsv();
+			} finally {
+				csv.close();
+				csv = null;
+			}
+		}
+	}
+
+	@Override
+	public int getTime() {
+		return time;
+	}
+
+	@Override
+	public long getMoves() {
+		return published.get(1);
+	}
+
+	@Override
+	public long getPickups() {
+		return published.get(2);
+	}
+
+	@Override
+	public long getDeliveries() {
+		return published.get(3);
+	}
+
+	@Override
+	public long getScentDeposits() {
+		return published.get(4);
+	}
+
+	@Override
+	public long getScentExpiries() {
+		return published.get(5);
+	}
+
+	@Override
+	public long getTicks() {
+		return published.get(0);
+	}
+
+	@Override
+	public double getMoveMeanNanos() {
+		return moveTimes.mean();
+	}
+
+	@Override
+	public long getMoveP50Nanos() {
+		return moveTimes.quantile(0.5);
+	}
+
+	@Override
+	public long getMoveP99Nanos() {
+		return moveTimes.quantile(0.99);
+	}
+
+	@Override
+	public long getMoveMaxNanos() {
+		return moveTimes.max();
+	}
+
+	@Override
+	public double getScentMeanNanos() {
+		return scentTimes.mean();
+	}
+
+	@Override
+	public long getScentP50Nanos() {
+		return scentTimes.quantile(0.5);
+	}
+
+	@Override
+	public long getScentP99Nanos() {
+		return scentTimes.quantile(0.99);
+	}
+
+	@Override
+	public long getScentMaxNanos() {
+		return scentTimes.max();
+	}
+
+	@Override
+	public long getRenders() {
+		return renderTimes.count();
+	}
+
+	@Override
+	public double getRenderMeanNanos() {
+		return renderTimes.mean();
+	}
+
+	@Override
+	public long getRenderP50Nanos() {
+		return renderTimes.quantile(0.5);
+	}
+
+	@Override
+	public long getRenderP99Nanos() {
+		return renderTimes.quantile(0.99);
+	}
+
+	@Override
+	public long getRenderMaxNanos() {
+		return renderTimes.max();
+	}
+
+}
\ No newline at end of file
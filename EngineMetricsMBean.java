@@ -0,0 +1,57 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 256 -nest 20,20,2000 -food 200,200,5000 -jmx true
+ *
+ * The attributes EngineMetrics publishes over JMX, as a standard MBean named
+ * AntColonies:type=EngineMetrics. The counts are totals since the simulation
+ * started to be measured, and the times are in nanoseconds.
+ *
+ */
+public interface EngineMetricsMBean {
+
+	int getTime();
+
+	long getMoves();
+
+	long getPickups();
+
+	long getDeliveries();
+
+	long getScentDeposits();
+
+	long getScentExpiries();
+
+	long getTicks();
+
+	double getMoveMeanNanos();
+
+	long getMoveP50Nanos();
+
+	long getMoveP99Nanos();
+
+	long getMoveMaxNanos();
+
+	double getScentMeanNanos();
+
+	long getScentP50Nanos();
+
+	long getScentP99Nanos();
+
+	long getScentMaxNanos();
+
+	long getRenders();
+
+	double getRenderMeanNanos();
+
+	long getRenderP50Nanos();
+
+	long getRenderP99Nanos();
+
+	long getRenderMaxNanos();
+
+}
\ No newline at end of file
@@ -0,0 +1,325 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar Ensemble.java
+ * Execution command: java -classpath . Ensemble -runs 200 -precision 0.01 -size 64 -nest 10,10 -food 50,50,500
+ *
+ * Runs one scenario many times with a different seed each time, several runs
+ * at once, and prints statistics of how long the runs took and of the seeds
+ * each tribe delivered. Like BatchRun it needs neither a display nor
+ * stdlib.jar. The options of the ensemble are given with the options of the
+ * scenario, see Scenario.parse for those:
+ *
+ * -runs N       most runs (100)
+ * -parallel N   runs at once (the number of processors)
+ * -precision F  stop once the 95% confidence interval of every mean is within
+ *               F times the mean (0, never stop early)
+ * -minRuns N    fewest runs before stopping early (10)
+ * -report N     print the statistics every N runs as well (0, only at the end)
+ *
+ * The results are taken in the order of the runs, whichever finishes first, so
+ * the output only depends on the seed and not on how many runs are at once.
+ *
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Ensemble {
+
+	private static final double[] QUANTILES = { 0.05, 0.5, 0.95 }; // Quantiles that are estimated.
+
+	private Scenario scenario; // The scenario of every run.
+	private Simulation template; // Simulation built from the scenario, which is copied by every run.
+	private int runs; // Most runs.
+	private double precision; // Largest half width of a confidence interval relative to its mean, 0 for none.
+	private int minRuns; // Fewest runs before stopping early.
+	private int report; // Runs between two reports, 0 for none.
+	private AtomicInteger nextRun = new AtomicInteger(); // Index of the next run to start.
+	private volatile boolean stopped; // Whether the statistics are precise enough and no more runs are started.
+	private Result[] pending; // Results that arrived before the runs before them, by index of run.
+	private int taken; // Number of results taken into the statistics.
+	private Statistics time = new Statistics(QUANTILES); // Points in time of the runs that finished.
+	private Statistics[] delivered; // Seeds delivered by each tribe.
+	private int finished; // Number of the runs taken that finished.
+
+	/**
+	 * The outcome of a run.
+	 */
+	private static class Result {
+
+		private int ticks; // Last point in time that was run.
+		private boolean finished; // Whether all the seeds were delivered.
+		private long[] delivered; // Seeds delivered by each tribe.
+
+	}
+
+	/**
+	 * Ensemble Object constructor.
+	 * 
+	 * @param scenario
+	 *            The scenario of every run.
+	 * @param template
+	 *            Simulation built from the scenario that has not run.
+	 * @param runs
+	 *            Most runs.
+	 * @param precision
+	 *            Largest half width of a confidence interval relative to its
+	 *            mean, 0 to never stop early.
+	 * @param minRuns
+	 *            Fewest runs before stopping early.
+	 * @param report
+	 *            Runs between two reports, 0 for none.
+	 */
+	public Ensemble(Scenario scenario, Simulation template, int runs, double precision, int minRuns, int report) {
+		this.scenario = scenario;
+		this.template = template;
+		this.runs = runs;
+		this.precision = precision;
+		this.minRuns = minRuns;
+		this.report = report;
+		pending = new Result[runs];
+		delivered = new Statistics[template.getColonies().length];
+		for (int c = 0; c < delivered.length; c++)
+			delivered[c] = new Statistics(QUANTILES);
+	}
+
+	/**
+	 * Gives the seed of a run, mixing the seed of the scenario with the index of
+	 * the run, so that the runs do not share any random numbers.
+	 * 
+	 * @param seed
+	 *            Seed of the scenario.
+	 * @param run
+	 *            Index of the run.
+	 * @return Seed of the run.
+	 */
+	static long runSeed(long seed, int run) {
+		long z = seed + (run + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Runs the ensemble on the given number of threads, each of which takes the
+	 * next run that has not started until there are none left or the
+	 * statistics are precise enough. Every run copies the field of the template,
+	 * so the scenario is only loaded once.
+	 * 
+	 * @param parallel
+	 *            Number of runs at once.
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while it waits for the runs.
+	 */
+	public void run(int parallel) throws InterruptedException {
+		AtomicInteger count = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(parallel, r -> {
+			Thread t = new Thread(r, "ensemble-" + count.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		ArrayList<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < parallel; i++)
+			futures.add(workers.submit(this::work));
+		workers.shutdown();
+		try {
+			for (Future<?> future : futures)
+				future.get();
+		} catch (ExecutionException e) {
+			stopped = true;
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Runs one run after the other until there are none left.
+	 */
+	private void work() {
+		long limit = scenario.getTickLimit();
+		for (int run = nextRun.getAndIncrement(); run < runs && !stopped; run = nextRun.getAndIncrement()) {
+			Simulation sim = scenario.replicate(template, runSeed(scenario.getSeed(), run));
+			Result result = new Result();
+			result.ticks = sim.run(limit);
+			result.finished = sim.finished();
+			Colony[] cols = sim.getColonies();
+			result.delivered = new long[cols.length];
+			for (int c = 0; c < cols.length; c++)
+				result.delivered[c] = cols[c].seedsDelivered();
+			sim.shutdown();
+			arrived(run, result);
+		}
+	}
+
+	/**
+	 * Keeps the result of a run, and takes it and the results after it that
+	 * have arrived into the statistics once the runs before it have been taken.
+	 */
+	private synchronized void arrived(int run, Result result) {
+		pending[run] = result;
+		while (!stopped && taken < runs && pending[taken] != null) {
+			Result next = pending[taken];
+			pending[taken++] = null;
+			if (next.finished) {
+				finished++;
+				time.add(next.ticks);
+			}
+			for (int c = 0; c < delivered.length; c++)
+				delivered[c].add(next.delivered[c]);
+			if (report > 0 && taken % report == 0 && taken < runs)
+				System.out.println(summary());
+			if (precision > 0 && taken >= minRuns && precise())
+				stopped = true;
+		}
+	}
+
+	/**
+	 * Checks whether the confidence interval of every mean is within the
+	 * precision. Statistics of fewer than two values are left out.
+	 */
+	private boolean precise() {
+		if (!precise(time))
+			return false;
+		for (Statistics s : delivered)
+			if (!precise(s))
+				return false;
+		return true;
+	}
+
+	private boolean precise(Statistics s) {
+		return s.count() < 2 || s.halfWidth() <= precision * Math.abs(s.mean());
+	}
+
+	/**
+	 * Gives the statistics of the runs taken so far, a line for the points in
+	 * time the runs finished at and a line for the seeds of each tribe.
+	 */
+	private String summary() {
+		StringBuilder out = new StringBuilder();
+		out.append("runs=").append(taken).append(" finished=").append(finished).append('\n');
+		out.append("time ").append(describe(time));
+		Colony[] cols = template.getColonies();
+		for (int c = 0; c < cols.length; c++)
+			out.append("\ndelivered colony=").append(cols[c].getName()).append(' ').append(describe(delivered[c]));
+		return out.toString();
+	}
+
+	/**
+	 * Describes statistics as key=value pairs.
+	 */
+	private static String describe(Statistics s) {
+		return "n=" + s.count() + " mean=" + format(s.mean()) + " sd=" + format(s.standardDeviation())
+				+ " halfWidth=" + format(s.halfWidth()) + " min=" + format(s.min()) + " p05="
+				+ format(s.quantile(0.05)) + " p50=" + format(s.quantile(0.5)) + " p95=" + format(s.quantile(0.95))
+				+ " max=" + format(s.max());
+	}
+
+	private static String format(double x) {
+		return Double.isNaN(x) ? "NaN" : String.format("%.3f", x);
+	}
+
+	public static void main(String[] args) {
+		int runs = 100, parallel = Runtime.getRuntime().availableProcessors(), minRuns = 10, report = 0;
+		double precision = 0;
+		Scenario scenario;
+		try {
+			// The options of the ensemble are taken out, and the rest are the scenario.
+			ArrayList<String> rest = new ArrayList<>();
+			for (int i = 0; i < args.length; i++) {
+				String option = args[i];
+				if (!Arrays.asList("-runs", "-parallel", "-precision", "-minRuns", "-report").contains(option)) {
+					rest.add(option);
+					continue;
+				}
+				if (i + 1 == args.length)
+					throw new IllegalArgumentException("Missing value for " + option);
+				String value = args[++i];
+				try {
+					switch (option) {
+					case "-runs":
+						runs = Integer.parseInt(value);
+						break;
+					case "-parallel":
+						parallel = Integer.parseInt(value);
+						break;
+					case "-precision":
+						precision = Double.parseDouble(value);
+						break;
+					case "-minRuns":
+						minRuns = Integer.parseInt(value);
+						break;
+					default:
+						report = Integer.parseInt(value);
+					}
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Bad value for " + option + ": " + value);
+				}
+			}
+			if (runs <= 0)
+				throw new IllegalArgumentException("Runs must be positive: " + runs);
+			if (parallel <= 0)
+				throw new IllegalArgumentException("Runs at once must be positive: " + parallel);
+			if (!(precision >= 0))
+				throw new IllegalArgumentException("Precision must not be negative: " + precision);
+			if (minRuns < 2)
+				throw new IllegalArgumentException("Fewest runs must be at least 2: " + minRuns);
+			if (report < 0)
+				throw new IllegalArgumentException("Runs between reports must not be negative: " + report);
+			scenario = Scenario.parse(rest.toArray(new String[0]));
+			if (scenario.resumes())
+				throw new IllegalArgumentException("An ensemble cannot -resume a checkpoint");
+			if (scenario.recordsRun())
+				throw new IllegalArgumentException(
+						"An ensemble cannot -trace, -checkpoint, -image, -live, -export, -heatmap, -metrics or -jmx");
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java Ensemble [-runs N] [-parallel N] [-precision F [-minRuns N]] [-report N]"
+					+ " (-nest X,Y[,ANTS] ... [-food X,Y,SEEDS ...] [-size N] [-ants N] | -file PATH)"
+					+ " [-wall X1,Y1,X2,Y2[,T] ...] [-water X1,Y1,X2,Y2[,T] ...] [-clear X1,Y1,X2,Y2,T ...]"
+					+ " [-scent N [-ownScent true|false] | -decay F [-diffusion D]] [-seed N] [-ticks N]");
+			System.exit(1);
+			return;
+		}
+
+		Simulation template;
+		try {
+			template = scenario.build();
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		template.shutdown(); // The runs plan their steps on their own threads.
+
+		long start = System.nanoTime();
+		Ensemble ensemble = new Ensemble(scenario, template, runs, precision, minRuns, report);
+		try {
+			ensemble.run(parallel);
+		} catch (InterruptedException | RuntimeException e) {
+			System.err.println(e);
+			System.exit(1);
+			return;
+		}
+		long end = System.nanoTime();
+
+		double seconds = (end - start) / 1e9;
+		synchronized (ensemble) {
+			System.out.println(ensemble.summary());
+			System.out.println("seed=" + scenario.getSeed() + " parallel=" + parallel + " stoppedEarly="
+					+ (ensemble.taken < runs) + " wallMs=" + (end - start) / 1000000 + " simsPerSec="
+					+ (seconds > 0 ? String.format("%.2f", ensemble.taken / seconds) : "0"));
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -file world.ants -trace run.events -traceColony 0
+ *
+ * Binary log of what the traced ants do. The file starts with a header:
+ *
+ * int   magic number 0x414E5445 ("ANTE")
+ * int   version, 1
+ * int   size N of the NxN field
+ * int   number of tribes, followed for each tribe by
+ *       int length and the UTF-8 bytes of its colour
+ *
+ * followed by records of four big endian ints each:
+ *
+ * int   point in time
+ * int   ID of the ant
+ * int   index of the cell (x*N+y)
+ * int   kind of the record in bits 0-7, status of the ant in bits 8-15 (only
+ *       for STATE records) and index of its tribe in bits 16-31
+ *
+ * Decode it with: java -classpath . EventLogDecoder run.events
+ *
+ */
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class EventLog implements Closeable {
+
+	public static final int STATE = 0; // The ant at the start of a point in time, as Ant.toString() describes it.
+	public static final int MOVE = 1; // The ant moved to the cell.
+	public static final int PICK_UP = 2; // The ant picked up a seed from the cell.
+	public static final int DELIVER = 3; // The ant delivered a seed to its nest, on the cell.
+	public static final int SCENT = 4; // The ant anointed the cell with one unit of scent.
+
+	static final int MAGIC = 0x414E5445; // "ANTE"
+	static final int VERSION = 1; // Version of the format.
+	static final int RECORD_INTS = 4; // Numbers in each record.
+	private static final int CAPACITY = 1 << 16; // Records the ring buffer holds, a power of two.
+	private static final int BATCH = 8192; // Most records written to the file at once.
+
+	private final int[] ring = new int[CAPACITY * RECORD_INTS]; // Records not yet written to the file.
+	private final AtomicLong head = new AtomicLong(); // Number of records written to the file.
+	private final AtomicLong tail = new AtomicLong(); // Number of records added to the ring buffer.
+	private long added; // Number of records added, as seen by the thread that adds them.
+	private long written; // Number of records written to the file, as last seen by the thread that adds them.
+	private volatile boolean closed; // Whether no more records will be added.
+	private volatile IOException failure; // Error of the thread that writes the file, null if there is none.
+	private FileChannel channel; // The file.
+	private Thread writer; // Thread that writes the records to the file.
+
+	/**
+	 * EventLog Object constructor. The header is written and a thread is started
+	 * that writes the records to the file in batches, as they are added.
+	 * 
+	 * @param path
+	 *            The log file.
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param colonies
+	 *            The tribes of the field.
+	 * @throws IOException
+	 *             If the file cannot be created.
+	 */
+	public EventLog(Path path, int size, Colony[] colonies) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		int length = 16;
+		byte[][] names = new byte[colonies.length][];
+		for (int c = 0; c < colonies.length; c++) {
+			names[c] = colonies[c].getName().getBytes(StandardCharsets.UTF_8);
+			length += 4 + names[c].length;
+		}
+		ByteBuffer header = ByteBuffer.allocate(length);
+		header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(colonies.length);
+		for (byte[] name : names)
+			header.putInt(name.length).put(name);
+		header.flip();
+		while (header.hasRemaining())
+			channel.write(header);
+		writer = new Thread(this::drain, "event-log-writer");
+		writer.start();
+	}
+
+	/**
+	 * Adds a record to the log. It is only called by the thread that runs the
+	 * simulation. If the ring buffer is full, it waits until the writer makes room.
+	 * 
+	 * @param time
+	 *            Point in time.
+	 * @param ant
+	 *            ID of the ant.
+	 * @param cell
+	 *            Index of the cell.
+	 * @param info
+	 *            Kind, status and tribe, packed as described above.
+	 */
+	public void record(int time, int ant, int cell, int info) {
+		long t = added;
+		if (t - written == CAPACITY)
+			while (t - (written = head.get()) == CAPACITY) {
+				if (failure != null)
+					throw new UncheckedIOException(failure);
+				LockSupport.parkNanos(10000);
+			}
+		int at = (int) (t & (CAPACITY - 1)) * RECORD_INTS;
+		ring[at] = time;
+		ring[at + 1] = ant;
+		ring[at + 2] = cell;
+		ring[at + 3] = info;
+		added = t + 1;
+		tail.lazySet(t + 1); // Publish the record to the writer.
+	}
+
+	/**
+	 * Body of the thread that writes the records to the file, until the log is
+	 * closed and all the records are written.
+	 */
+	private void drain() {
+		ByteBuffer buf = ByteBuffer.allocateDirect(BATCH * RECORD_INTS * 4);
+		long h = head.get();
+		try {
+			while (true) {
+				long t = tail.get();
+				if (h == t) {
+					if (closed && h == tail.get())
+						return;
+					LockSupport.parkNanos(100000);
+					continue;
+				}
+				long end = Math.min(t, h + BATCH);
+				for (long r = h; r < end; r++) {
+					int at = (int) (r & (CAPACITY - 1)) * RECORD_INTS;
+					buf.putInt(ring[at]).putInt(ring[at + 1]).putInt(ring[at + 2]).putInt(ring[at + 3]);
+				}
+				head.lazySet(end); // The records are copied, so their room can be used again.
+				h = end;
+				buf.flip();
+				while (buf.hasRemaining())
+					channel.write(buf);
+				buf.clear();
+			}
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * Waits until all the records are written and closes the file.
+	 * 
+	 * @throws IOException
+	 *             If the records could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while closing the event log");
+		} finally {
+			channel.close();
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+}
\ No newline at end of file
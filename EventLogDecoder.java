@@ -0,0 +1,86 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar EventLogDecoder.java
+ * Execution command: java -classpath . EventLogDecoder run.events
+ *
+ * Prints an event log written by EventLog as text, one line per record. The
+ * STATE records are printed in the same wording as the trace of AntColonies.
+ *
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class EventLogDecoder {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: java EventLogDecoder LOGFILE");
+			System.exit(1);
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(args[0])),
+				1 << 16));
+				Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+			if (in.readInt() != EventLog.MAGIC)
+				throw new IOException(args[0] + " is not an event log");
+			int version = in.readInt();
+			if (version != EventLog.VERSION)
+				throw new IOException("Unsupported event log version " + version);
+			int size = in.readInt();
+			String[] names = new String[in.readInt()];
+			for (int c = 0; c < names.length; c++) {
+				byte[] name = new byte[in.readInt()];
+				in.readFully(name);
+				names[c] = new String(name, StandardCharsets.UTF_8);
+			}
+
+			while (true) {
+				int time;
+				try {
+					time = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				int ant = in.readInt();
+				int cell = in.readInt();
+				int info = in.readInt();
+				out.write(decode(time, ant, cell / size, cell % size, info, names));
+				out.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Gives the text of a record.
+	 */
+	private static String decode(int time, int ant, int x, int y, int info, String[] names) {
+		String name = names[info >>> 16];
+		String s = "Time " + time + ": ";
+		switch (info & 0xFF) {
+		case EventLog.STATE:
+			return s + Ant.describe(name, ant, x, y, (info >>> 8) & 0xFF);
+		case EventLog.MOVE:
+			return s + name + " Ant-" + ant + " moved to (" + x + "," + y + ").";
+		case EventLog.PICK_UP:
+			return s + name + " Ant-" + ant + " picked up a seed at (" + x + "," + y + ").";
+		case EventLog.DELIVER:
+			return s + name + " Ant-" + ant + " delivered a seed to its nest at (" + x + "," + y + ").";
+		case EventLog.SCENT:
+			return s + name + " Ant-" + ant + " anointed (" + x + "," + y + ") with one unit of scent.";
+		default:
+			return s + "Unknown record " + (info & 0xFF) + " of " + name + " Ant-" + ant + ".";
+		}
+	}
+
+}
\ No newline at end of file
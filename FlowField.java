@@ -0,0 +1,236 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 64 -nest 10,10 -food 50,50,500 -wall 30,0,30,60
+ *
+ * Implementation of the FlowField Object.
+ *
+ */
+import java.util.Arrays;
+
+public class FlowField {
+
+	public static final int UNREACHABLE = Integer.MAX_VALUE; // Distance of a cell from which the nest cannot be reached.
+
+	private static final int[] DX = { -1, 1, 0, 0 }; // Row change for each direction: up, down, left, right.
+	private static final int[] DY = { 0, 0, -1, 1 }; // Column change for each direction: up, down, left, right.
+
+	private CellGrid terain; // The field.
+	private int size; // Size of the NxN field.
+	private int nest; // Index of the cell of the nest.
+	private int[] distance; // Steps from each cell to the nest around the obstacles.
+	private int[] queue = new int[16]; // Cells waiting to be visited while the distances are updated.
+	private int[] lostDistance = new int[16]; // Distance each cell in the above queue had, when it is invalidated.
+
+	/**
+	 * FlowField Object constructor. The distance of every cell from the nest is
+	 * found with a breadth-first search from the nest, going round the cells
+	 * that cannot be crossed, so an ant that goes back to the nest only has to
+	 * look up its four neighbours.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param nestIndex
+	 *            Index of the cell of the nest.
+	 */
+	public FlowField(CellGrid grid, int nestIndex) {
+		terain = grid;
+		size = grid.getSize();
+		nest = nestIndex;
+		distance = new int[size * size];
+		Arrays.fill(distance, UNREACHABLE);
+		distance[nest] = 0;
+		int tail = 0;
+		queue = append(queue, tail++, nest);
+		for (int head = 0; head < tail; head++)
+			tail = relax(queue[head], tail);
+	}
+
+	/**
+	 * Gives the index of the cell of the nest.
+	 * 
+	 * @return Index of the nest.
+	 */
+	public int getNest() {
+		return nest;
+	}
+
+	/**
+	 * Gives the number of steps from the cell at the given index to the nest.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return Steps to the nest, UNREACHABLE if the nest cannot be reached.
+	 */
+	public int distance(int index) {
+		return distance[index];
+	}
+
+	/**
+	 * Gives the direction of the step from the cell (x,y) towards the nest, to
+	 * the neighbour that is closest to it, the first one of up, down, left and
+	 * right in case of a tie. On a field without obstacles this is the step with
+	 * the smallest Manhattan Distance.
+	 * 
+	 * @param x
+	 *            Row of the cell.
+	 * @param y
+	 *            Column of the cell.
+	 * @return Index of the direction, -1 if the nest cannot be reached.
+	 */
+	public int bestDirection(int x, int y) {
+		int min = UNREACHABLE;
+		int direction = -1;
+		for (int d = 0; d < 4; d++) {
+			int nx = x + DX[d], ny = y + DY[d];
+			if (nx < 0 || nx >= size || ny < 0 || ny >= size)
+				continue;
+			int steps = distance[nx * size + ny];
+			if (steps < min) {
+				min = steps;
+				direction = d;
+			}
+		}
+		return direction;
+	}
+
+	/**
+	 * Brings the distances up to date after the cell at the given index became
+	 * impassable. Only the cells whose every shortest way to the nest went
+	 * through it lose their distance. They are found by walking away from the
+	 * cell in order of distance, and they are then given their new distances by
+	 * a search that starts from the cells around them that kept theirs.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void blocked(int index) {
+		if (distance[index] == UNREACHABLE)
+			return;
+		int lost = 0;
+		queue = append(queue, lost, index);
+		lostDistance = append(lostDistance, lost++, distance[index]);
+		distance[index] = UNREACHABLE;
+		for (int head = 0; head < lost; head++) {
+			int x = queue[head] / size, y = queue[head] % size;
+			for (int d = 0; d < 4; d++) {
+				int nx = x + DX[d], ny = y + DY[d];
+				if (nx < 0 || nx >= size || ny < 0 || ny >= size)
+					continue;
+				int next = nx * size + ny;
+				if (distance[next] != lostDistance[head] + 1 || supported(nx, ny))
+					continue;
+				queue = append(queue, lost, next);
+				lostDistance = append(lostDistance, lost++, distance[next]);
+				distance[next] = UNREACHABLE;
+			}
+		}
+
+		// The cells that kept their distance next to the ones that lost it are
+		// visited in order of distance, merged with the cells the search reaches.
+		long[] border = new long[16];
+		int borders = 0;
+		for (int k = 0; k < lost; k++) {
+			int x = queue[k] / size, y = queue[k] % size;
+			for (int d = 0; d < 4; d++) {
+				int nx = x + DX[d], ny = y + DY[d];
+				if (nx < 0 || nx >= size || ny < 0 || ny >= size)
+					continue;
+				int next = nx * size + ny;
+				if (distance[next] != UNREACHABLE) {
+					if (borders == border.length)
+						border = Arrays.copyOf(border, borders * 2);
+					border[borders++] = (long) distance[next] << 32 | next;
+				}
+			}
+		}
+		Arrays.sort(border, 0, borders);
+		int head = 0, tail = 0;
+		for (int b = 0; b < borders || head < tail;) {
+			int cell;
+			if (head == tail || b < borders && (int) (border[b] >>> 32) <= distance[queue[head]])
+				cell = (int) border[b++];
+			else
+				cell = queue[head++];
+			tail = relax(cell, tail);
+		}
+	}
+
+	/**
+	 * Brings the distances up to date after the cell at the given index became
+	 * passable. It takes the distance of its closest neighbour plus one, and the
+	 * cells that are now closer to the nest through it are visited from it.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void opened(int index) {
+		int x = index / size, y = index % size;
+		int direction = bestDirection(x, y);
+		if (direction < 0)
+			return;
+		distance[index] = distance[(x + DX[direction]) * size + y + DY[direction]] + 1;
+		int tail = 0;
+		queue = append(queue, tail++, index);
+		for (int head = 0; head < tail; head++)
+			tail = relax(queue[head], tail);
+	}
+
+	/**
+	 * Checks whether the passable cell (x,y) still has a neighbour that is one
+	 * step closer to the nest.
+	 */
+	private boolean supported(int x, int y) {
+		int index = x * size + y;
+		if (index == nest)
+			return true;
+		for (int d = 0; d < 4; d++) {
+			int nx = x + DX[d], ny = y + DY[d];
+			if (nx >= 0 && nx < size && ny >= 0 && ny < size && distance[nx * size + ny] == distance[index] - 1)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gives the distance of a cell plus one to each of its passable neighbours
+	 * that are further than that from the nest, and adds them to the queue.
+	 * 
+	 * @param cell
+	 *            Index of the cell.
+	 * @param tail
+	 *            Number of entries in the queue.
+	 * @return The new number of entries in the queue.
+	 */
+	private int relax(int cell, int tail) {
+		int x = cell / size, y = cell % size;
+		int steps = distance[cell] + 1;
+		for (int d = 0; d < 4; d++) {
+			int nx = x + DX[d], ny = y + DY[d];
+			if (nx < 0 || nx >= size || ny < 0 || ny >= size)
+				continue;
+			int next = nx * size + ny;
+			if (distance[next] > steps && !terain.isBlocked(next)) {
+				distance[next] = steps;
+				queue = append(queue, tail++, next);
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Stores a value at the given position of an array, expanding the array if
+	 * needed.
+	 */
+	private static int[] append(int[] array, int position, int value) {
+		if (position == array.length)
+			array = Arrays.copyOf(array, array.length * 2);
+		array[position] = value;
+		return array;
+	}
+
+}
\ No newline at end of file
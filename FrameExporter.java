@@ -0,0 +1,226 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -file world.ants -export frames -exportEvery 10
+ *
+ * Implementation of the FrameExporter Object.
+ *
+ */
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+public class FrameExporter {
+
+	private int size; // Size of the NxN field.
+	private int side; // Width and height of a frame in pixels.
+	private GridRenderer renderer; // Draws the frames.
+	private Path directory; // Directory the numbered PNG files are written to, null if they are not.
+	private OutputStream raw; // Stream of the frames one after the other, null if there is none.
+	private BlockingQueue<int[]> free; // Packed fields that are not used by any frame.
+	private ExecutorService workers; // Threads that draw and write the frames.
+	private ThreadLocal<Worker> local; // Image and bytes of each worker thread.
+	private long captured; // Number of frames captured.
+	private long rawNext; // Number of the next frame written to the raw stream.
+	private Object rawTurn = new Object(); // Lock the workers wait on for their turn to write to the raw stream.
+	private volatile IOException failure; // First error of the worker threads, null if there is none.
+
+	/**
+	 * The image a worker thread draws into and the bytes it writes to the raw
+	 * stream.
+	 */
+	private class Worker {
+
+		private BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+		private int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		private byte[] rgb = raw != null ? new byte[side * side * 3] : null;
+
+	}
+
+	/**
+	 * FrameExporter Object constructor. Frames are captured by the simulation
+	 * thread, which only packs the field and queues it, and they are drawn and
+	 * written by a pool of threads. Each frame is written to a numbered PNG file,
+	 * frame-000000.png, frame-000001.png and so on, and to the raw stream, where
+	 * the frames follow each other in the order they were captured, with three
+	 * bytes, red, green and blue, for each pixel, row after row. This is what
+	 * encoders read as raw rgb24 video, e.g. ffmpeg -f rawvideo -pix_fmt rgb24.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param renderer
+	 *            Draws the frames.
+	 * @param directory
+	 *            Directory the PNG files are written to, null for none.
+	 * @param rawFile
+	 *            File or named pipe the raw stream is written to, null for none.
+	 * @param threads
+	 *            Number of threads that draw and write the frames.
+	 * @param queue
+	 *            Most frames that wait to be drawn before capturing waits.
+	 * @throws IOException
+	 *             If the directory or the raw stream cannot be created.
+	 */
+	public FrameExporter(int size, GridRenderer renderer, Path directory, Path rawFile, int threads, int queue)
+			throws IOException {
+		if (directory == null && rawFile == null)
+			throw new IllegalArgumentException("Neither a directory nor a raw stream to export to");
+		this.size = size;
+		side = size * renderer.getCellPixels();
+		this.renderer = renderer;
+		this.directory = directory;
+		if (directory != null)
+			Files.createDirectories(directory);
+		if (rawFile != null)
+			raw = new BufferedOutputStream(Files.newOutputStream(rawFile), 1 << 16);
+		// Each worker holds at most one packed field while it draws it, so the
+		// queued frames never need more than the rest.
+		free = new ArrayBlockingQueue<>(queue + threads);
+		for (int i = 0; i < queue + threads; i++)
+			free.add(new int[size * size]);
+		AtomicInteger count = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "frame-exporter-" + count.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		});
+		local = ThreadLocal.withInitial(Worker::new);
+	}
+
+	/**
+	 * Captures a frame of the field. It is called by the simulation thread
+	 * between two points in time, and only waits if the queue of frames is full.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @throws IOException
+	 *             If an earlier frame could not be written, or the simulation
+	 *             thread is interrupted while it waits.
+	 */
+	public void capture(CellGrid grid) throws IOException {
+		if (failure != null)
+			throw failure;
+		int[] cells;
+		try {
+			cells = free.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while exporting frames");
+		}
+		grid.pack(cells);
+		long number = captured++;
+		workers.execute(() -> export(cells, number));
+	}
+
+	/**
+	 * Draws a frame, hands its packed field back and writes it.
+	 */
+	private void export(int[] cells, long number) {
+		Worker worker = local.get();
+		try {
+			try {
+				renderer.render(size, cells, worker.pixels, side);
+			} finally {
+				free.add(cells);
+			}
+			if (directory != null && failure == null)
+				if (!ImageIO.write(worker.image, "png",
+						directory.resolve(String.format("frame-%06d.png", number)).toFile()))
+					throw new IOException("No PNG writer available");
+		} catch (IOException e) {
+			fail(e);
+		} finally {
+			if (raw != null)
+				writeRaw(worker, number);
+		}
+	}
+
+	/**
+	 * Writes a frame to the raw stream, after waiting for the frames captured
+	 * before it. Those are already being drawn by other workers, since the
+	 * frames are taken from the queue in order.
+	 */
+	private void writeRaw(Worker worker, long number) {
+		for (int i = 0, k = 0; i < worker.pixels.length; i++) {
+			int p = worker.pixels[i];
+			worker.rgb[k++] = (byte) (p >> 16);
+			worker.rgb[k++] = (byte) (p >> 8);
+			worker.rgb[k++] = (byte) p;
+		}
+		synchronized (rawTurn) {
+			try {
+				while (rawNext != number)
+					rawTurn.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail(new InterruptedIOException("Interrupted while exporting frames"));
+				return;
+			}
+			try {
+				if (failure == null)
+					raw.write(worker.rgb);
+			} catch (IOException e) {
+				fail(e);
+			} finally {
+				rawNext++;
+				rawTurn.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Keeps the first error of the worker threads.
+	 */
+	private synchronized void fail(IOException e) {
+		if (failure == null)
+			failure = e;
+	}
+
+	/**
+	 * Gives the number of frames captured.
+	 * 
+	 * @return Frames captured.
+	 */
+	public long framesCaptured() {
+		return captured;
+	}
+
+	/**
+	 * Waits for the captured frames to be written and stops the worker threads.
+	 * 
+	 * @throws IOException
+	 *             If a frame could not be written.
+	 */
+	public void close() throws IOException {
+		workers.shutdown();
+		try {
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while exporting frames");
+		} finally {
+			if (raw != null)
+				raw.close();
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,317 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 64 -nest 10,10 -food 30,30,500 -image field.png
+ *
+ * Implementation of the GridRenderer Object.
+ *
+ */
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+public class GridRenderer {
+
+	private static final int BACKGROUND = 0x3E3E3E; // Colour of an empty cell, as in CellGrid.draw().
+	private static final int LINES = 0xFFFFFF; // Colour of the lines between the cells, as in CellGrid.draw().
+	private static final int NEST = 0xFFFFFF; // Colour of a nest.
+	private static final int FOOD = 0x000000; // Colour of a food source.
+	private static final int SCENT = 0x30D040; // Colour of the strongest scent of the field.
+	private static final int WALL = 0x8B5A2B; // Colour of a wall.
+	private static final int WATER = 0x2E6FD0; // Colour of water.
+	private static final int[] RAMP = { 0x000000, 0x20208C, 0xC02020, 0xF0D020, 0xFFFFFF }; // Heatmap colours from none to most.
+	private static final int TILE = 64; // Width of the square tiles of cells that are drawn one after the other.
+
+	private int cellPixels; // Width and height of a cell in pixels.
+	private boolean showScent; // Whether the cells are shaded by their scent.
+	private boolean[] nestMask; // Pixels of a cell covered by a nest.
+	private boolean[] foodMask; // Pixels of a cell covered by a food source.
+	private LatencyHistogram timing; // Histogram the rendering of each field is timed in, null if it is not timed.
+
+	/**
+	 * GridRenderer Object constructor. Nests are drawn as white discs and food
+	 * sources as smaller black discs on top of them, like CellGrid.draw() does,
+	 * walls are filled brown and water blue, and lines are drawn between the cells if they are at least 4 pixels wide.
+	 * 
+	 * @param cellPixels
+	 *            Width and height of a cell in pixels.
+	 * @param showScent
+	 *            Whether the cells are shaded from grey to green by their scent,
+	 *            relative to the strongest scent of the field.
+	 */
+	public GridRenderer(int cellPixels, boolean showScent) {
+		if (cellPixels <= 0)
+			throw new IllegalArgumentException("Pixels per cell must be positive: " + cellPixels);
+		this.cellPixels = cellPixels;
+		this.showScent = showScent;
+		nestMask = disc(cellPixels, 0.8);
+		foodMask = disc(cellPixels, 0.6);
+	}
+
+	/**
+	 * Gives the pixels of a cell that are covered by a disc at its centre.
+	 * 
+	 * @param p
+	 *            Width of the cell in pixels.
+	 * @param diameter
+	 *            Diameter of the disc, as a part of the width of the cell.
+	 * @return Whether each pixel, row after row, is covered.
+	 */
+	private static boolean[] disc(int p, double diameter) {
+		boolean[] mask = new boolean[p * p];
+		double centre = (p - 1) / 2.0;
+		double radius = Math.max(diameter * p / 2, 0.5);
+		for (int v = 0; v < p; v++)
+			for (int u = 0; u < p; u++)
+				mask[v * p + u] = (u - centre) * (u - centre) + (v - centre) * (v - centre) <= radius * radius;
+		return mask;
+	}
+
+	/**
+	 * Starts timing the rendering of each field, from any of the threads that
+	 * render with this renderer.
+	 * 
+	 * @param histogram
+	 *            Histogram the durations are recorded in.
+	 */
+	public void timeTo(LatencyHistogram histogram) {
+		timing = histogram;
+	}
+
+	/**
+	 * Gives the width and height of a cell in pixels.
+	 * 
+	 * @return Pixels per cell.
+	 */
+	public int getCellPixels() {
+		return cellPixels;
+	}
+
+	/**
+	 * Renders the field into a new image.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @return Image of the field, cellPixels times N pixels wide and high.
+	 */
+	public BufferedImage render(CellGrid grid) {
+		int side = grid.getSize() * cellPixels;
+		BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+		render(grid, ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), side);
+		return image;
+	}
+
+	/**
+	 * Renders the field into the pixels of an image, row after row, which is how
+	 * a TYPE_INT_RGB BufferedImage keeps them. As in CellGrid.draw(), rows of the
+	 * field go from left to right and columns from bottom to top.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param pixels
+	 *            Pixels of the image, at least cellPixels times N wide and high.
+	 * @param width
+	 *            Width of the image in pixels.
+	 */
+	public void render(CellGrid grid, int[] pixels, int width) {
+		int size = grid.getSize();
+		if (grid.getScentField() != null) { // Scent levels are shaded as they are packed.
+			int[] cells = new int[size * size];
+			grid.pack(cells);
+			render(size, cells, pixels, width);
+			return;
+		}
+		long start = timing != null ? System.nanoTime() : 0;
+		int maxScent = 0;
+		if (showScent)
+			for (int i = 0; i < size * size; i++)
+				maxScent = Math.max(maxScent, grid.getScent(i));
+
+		// The cells are drawn in square tiles, so that both the arrays of the field,
+		// which are kept row after row, and the pixels, which are kept column after
+		// column of the field, are read and written near where they were last.
+		for (int ty = 0; ty < size; ty += TILE)
+			for (int tx = 0; tx < size; tx += TILE)
+				for (int x = tx; x < Math.min(tx + TILE, size); x++)
+					for (int y = ty; y < Math.min(ty + TILE, size); y++) {
+						int index = grid.index(x, y);
+						int scent = grid.getScent(index);
+						int colour = maxScent > 0 && scent > 0 ? blend(BACKGROUND, SCENT, scent, maxScent) : BACKGROUND;
+						if (grid.getObstacle(index) == CellGrid.WALL)
+							colour = WALL;
+						else if (grid.getObstacle(index) == CellGrid.WATER)
+							colour = WATER;
+						drawCell(pixels, width, size, x, y, colour, grid.withNest(index), grid.getFood(index) > 0);
+					}
+		if (timing != null)
+			timing.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Renders a field that was packed by CellGrid.pack() into the pixels of an
+	 * image, the same way as the field itself is rendered, so that a copy of the
+	 * field can be drawn while the field goes on changing.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param cells
+	 *            The packed cells of the field.
+	 * @param pixels
+	 *            Pixels of the image, at least cellPixels times N wide and high.
+	 * @param width
+	 *            Width of the image in pixels.
+	 */
+	public void render(int size, int[] cells, int[] pixels, int width) {
+		long start = timing != null ? System.nanoTime() : 0;
+		int maxScent = 0;
+		if (showScent)
+			for (int i = 0; i < size * size; i++)
+				maxScent = Math.max(maxScent, cells[i] & CellGrid.PACKED_SCENT);
+
+		for (int ty = 0; ty < size; ty += TILE)
+			for (int tx = 0; tx < size; tx += TILE)
+				for (int x = tx; x < Math.min(tx + TILE, size); x++)
+					for (int y = ty; y < Math.min(ty + TILE, size); y++) {
+						int cell = cells[x * size + y];
+						int scent = cell & CellGrid.PACKED_SCENT;
+						int colour = maxScent > 0 && scent > 0 ? blend(BACKGROUND, SCENT, scent, maxScent) : BACKGROUND;
+						if ((cell & CellGrid.PACKED_WALL) != 0)
+							colour = WALL;
+						else if ((cell & CellGrid.PACKED_WATER) != 0)
+							colour = WATER;
+						drawCell(pixels, width, size, x, y, colour, (cell & CellGrid.PACKED_NEST) != 0,
+								(cell & CellGrid.PACKED_FOOD) != 0);
+					}
+		if (timing != null)
+			timing.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Draws the cell (x,y) of an NxN field into the pixels of the image, filled
+	 * with the given colour.
+	 */
+	private void drawCell(int[] pixels, int width, int size, int x, int y, int colour, boolean nest, boolean food) {
+		int p = cellPixels;
+		int top = (size - 1 - y) * p; // Columns of the field go from bottom to top.
+		int left = x * p;
+		if (p == 1) {
+			pixels[top * width + left] = food ? FOOD : nest ? NEST : colour;
+			return;
+		}
+		for (int v = 0; v < p; v++) {
+			int row = (top + v) * width + left;
+			for (int u = 0; u < p; u++) {
+				int k = v * p + u;
+				int c = colour;
+				if (p >= 4 && (u == 0 || v == 0))
+					c = LINES;
+				if (nest && nestMask[k])
+					c = NEST;
+				if (food && foodMask[k])
+					c = FOOD;
+				pixels[row + u] = c;
+			}
+		}
+	}
+
+	/**
+	 * Mixes two colours, giving the second one the weight amount / total.
+	 */
+	private static int blend(int from, int to, int amount, int total) {
+		int r = ((from >> 16) & 0xFF) + (((to >> 16) & 0xFF) - ((from >> 16) & 0xFF)) * amount / total;
+		int g = ((from >> 8) & 0xFF) + (((to >> 8) & 0xFF) - ((from >> 8) & 0xFF)) * amount / total;
+		int b = (from & 0xFF) + ((to & 0xFF) - (from & 0xFF)) * amount / total;
+		return r << 16 | g << 8 | b;
+	}
+
+	/**
+	 * Renders counts of the cells of a field, such as a layer of a Heatmap, as a
+	 * heatmap, from black for none through blue, red and yellow to white for the
+	 * most. The colours follow the logarithm of the counts, so that cells that
+	 * are seldom visited still show next to the busiest ones. Rows and columns go
+	 * the same way as in the image of the field.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param counts
+	 *            Count of each cell, row after row.
+	 * @return Image of the heatmap, cellPixels times N pixels wide and high.
+	 */
+	public BufferedImage renderHeatmap(int size, long[] counts) {
+		long max = 0;
+		for (long count : counts)
+			max = Math.max(max, count);
+		double scale = max > 0 ? (RAMP.length - 1) / Math.log1p(max) : 0;
+
+		int p = cellPixels;
+		int side = size * p;
+		BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		for (int x = 0; x < size; x++)
+			for (int y = 0; y < size; y++) {
+				int colour = ramp(Math.log1p(counts[x * size + y]) * scale);
+				int top = (size - 1 - y) * p; // Columns of the field go from bottom to top.
+				for (int v = 0; v < p; v++)
+					Arrays.fill(pixels, (top + v) * side + x * p, (top + v) * side + x * p + p, colour);
+			}
+		return image;
+	}
+
+	/**
+	 * Gives the colour at a position of the heatmap colours, from 0 to the last
+	 * one.
+	 */
+	private static int ramp(double position) {
+		int from = Math.min((int) position, RAMP.length - 2);
+		double t = Math.min(position - from, 1);
+		int colour = 0;
+		for (int shift = 0; shift <= 16; shift += 8) {
+			int a = (RAMP[from] >> shift) & 0xFF;
+			int b = (RAMP[from + 1] >> shift) & 0xFF;
+			colour |= (int) Math.round(a + (b - a) * t) << shift;
+		}
+		return colour;
+	}
+
+	/**
+	 * Renders counts of the cells of a field as a heatmap and writes it to a PNG
+	 * file.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param counts
+	 *            Count of each cell, row after row.
+	 * @param path
+	 *            The PNG file.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public void writeHeatmapPng(int size, long[] counts, Path path) throws IOException {
+		if (!ImageIO.write(renderHeatmap(size, counts), "png", path.toFile()))
+			throw new IOException("No PNG writer available");
+	}
+
+	/**
+	 * Renders the field and writes it to a PNG file, without any window.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param path
+	 *            The PNG file.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public void writePng(CellGrid grid, Path path) throws IOException {
+		if (!ImageIO.write(render(grid), "png", path.toFile()))
+			throw new IOException("No PNG writer available");
+	}
+
+}
\ No newline at end of file
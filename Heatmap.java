@@ -0,0 +1,186 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -file world.ants -heatmap run.heat -heatmapImage heat.png
+ *
+ * Counts of what happened on each cell of the field while it ran. They are
+ * written to a binary file:
+ *
+ * int   magic number 0x414E5448 ("ANTH")
+ * int   version, 1
+ * int   size N of the NxN field
+ * int   point in time the counts go up to
+ * long  NxN moves of an ant onto each cell
+ * long  NxN scent-ticks of each cell: for each point in time, the scent units
+ *       on the cell at its end, or its scent level, rounded, when the scent is
+ *       kept as levels
+ * int   NxN seeds picked up from each cell
+ * int   NxN seeds delivered to each cell
+ *
+ * The matrices are kept row after row, cell (x,y) at x*N+y, and every number
+ * is big endian. GridRenderer renders a layer of them as a heatmap.
+ *
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class Heatmap {
+
+	public static final int VISITS = 0; // Layer of the moves onto each cell.
+	public static final int SCENT = 1; // Layer of the scent-ticks of each cell.
+	public static final int PICKUPS = 2; // Layer of the seeds picked up from each cell.
+	public static final int DELIVERIES = 3; // Layer of the seeds delivered to each cell.
+	public static final String[] LAYERS = { "visits", "scent", "pickups", "deliveries" }; // Name of each layer.
+
+	private static final int MAGIC = 0x414E5448; // "ANTH"
+	private static final int VERSION = 1; // Version of the format.
+
+	private int size; // Size of the NxN field.
+	private long[] visits; // Moves of an ant onto each cell.
+	private long[] scentTicks; // Scent-ticks of each cell, of the scent units that have evaporated.
+	private int[] pickups; // Seeds picked up from each cell.
+	private int[] deliveries; // Seeds delivered to each cell.
+	private double[] levelTicks; // Scent levels of each cell summed over the points in time, null for scent units.
+
+	/**
+	 * Heatmap Object constructor. All the counts start at zero. They are kept in
+	 * flat arrays, like the state of the field, and they are only updated while
+	 * the steps are committed, one ant at a time, so no locking is needed.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 */
+	public Heatmap(int size) {
+		this.size = size;
+		visits = new long[size * size];
+		scentTicks = new long[size * size];
+		pickups = new int[size * size];
+		deliveries = new int[size * size];
+	}
+
+	/**
+	 * Counts an ant moving onto the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void visit(int index) {
+		visits[index]++;
+	}
+
+	/**
+	 * Counts a seed picked up from the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void pickUp(int index) {
+		pickups[index]++;
+	}
+
+	/**
+	 * Counts a seed delivered to the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 */
+	public void deliver(int index) {
+		deliveries[index]++;
+	}
+
+	/**
+	 * Counts a scent unit of the cell at the given index that evaporated.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param ticks
+	 *            Points in time it was on the cell.
+	 */
+	public void evaporated(int index, int ticks) {
+		scentTicks[index] += ticks;
+	}
+
+	/**
+	 * Adds the scent level of each cell at the end of a point in time to its
+	 * scent-ticks.
+	 * 
+	 * @param field
+	 *            The scent levels of the field.
+	 */
+	public void addLevels(ScentField field) {
+		if (levelTicks == null)
+			levelTicks = new double[size * size];
+		for (int i = 0; i < levelTicks.length; i++)
+			levelTicks[i] += field.get(i);
+	}
+
+	/**
+	 * Gives a layer of the counts, including the scent units that are still on
+	 * the field.
+	 * 
+	 * @param layer
+	 *            VISITS, SCENT, PICKUPS or DELIVERIES.
+	 * @param grid
+	 *            NxN cell grid the counts were taken on.
+	 * @param time
+	 *            Last point in time that has been run.
+	 * @return The counts of the cells, row after row.
+	 */
+	public long[] layer(int layer, CellGrid grid, int time) {
+		long[] counts = new long[size * size];
+		switch (layer) {
+		case VISITS:
+			System.arraycopy(visits, 0, counts, 0, counts.length);
+			break;
+		case SCENT:
+			System.arraycopy(scentTicks, 0, counts, 0, counts.length);
+			grid.addScentAges(counts, time);
+			if (levelTicks != null)
+				for (int i = 0; i < counts.length; i++)
+					counts[i] += Math.round(levelTicks[i]);
+			break;
+		case PICKUPS:
+			for (int i = 0; i < counts.length; i++)
+				counts[i] = pickups[i];
+			break;
+		case DELIVERIES:
+			for (int i = 0; i < counts.length; i++)
+				counts[i] = deliveries[i];
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown layer " + layer);
+		}
+		return counts;
+	}
+
+	/**
+	 * Writes the counts to a binary file.
+	 * 
+	 * @param path
+	 *            The file.
+	 * @param grid
+	 *            NxN cell grid the counts were taken on.
+	 * @param time
+	 *            Last point in time that has been run.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public void write(Path path, CellGrid grid, int time) throws IOException {
+		try (Checkpoint.Writer out = new Checkpoint.Writer(path)) {
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(size);
+			out.putInt(time);
+			out.putLongs(visits, 0, visits.length);
+			long[] scent = layer(SCENT, grid, time);
+			out.putLongs(scent, 0, scent.length);
+			out.putInts(pickups, 0, pickups.length);
+			out.putInts(deliveries, 0, deliveries.length);
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 256 -nest 20,20,2000 -food 200,200,5000 -metrics metrics.csv
+ *
+ * Implementation of the LatencyHistogram Object.
+ *
+ */
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 3; // Bits of a value below its highest one that pick its bucket.
+	private static final int SUB_BUCKETS = 1 << SUB_BITS; // Buckets between two powers of two.
+	public static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS; // Number of buckets, enough for any long.
+
+	private AtomicLongArray counts = new AtomicLongArray(BUCKETS); // Number of values in each bucket.
+	private AtomicLong total = new AtomicLong(); // Number of values recorded.
+	private AtomicLong sum = new AtomicLong(); // Sum of the values recorded.
+	private AtomicLong max = new AtomicLong(); // Largest value recorded.
+
+	/**
+	 * LatencyHistogram Object constructor. Durations in nanoseconds are counted
+	 * in buckets on a logarithmic scale, eight buckets between two powers of
+	 * two, so a quantile is within an eighth of its value whether it is a few
+	 * nanoseconds or a few minutes. The buckets are made once, so recording
+	 * neither allocates nor locks, and several threads can record at once while
+	 * another one reads.
+	 */
+	public LatencyHistogram() {
+	}
+
+	/**
+	 * Gives the bucket of a value. Values below eight have a bucket each, and
+	 * above that the highest bit of a value picks the power of two and the three
+	 * bits below it the bucket within it.
+	 */
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int high = 63 - Long.numberOfLeadingZeros(value);
+		return (high - SUB_BITS + 1) * SUB_BUCKETS + (int) (value >>> (high - SUB_BITS)) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Gives the largest value of a bucket.
+	 */
+	private static long upper(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int high = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long lower = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << (high - SUB_BITS);
+		return lower + (1L << (high - SUB_BITS)) - 1;
+	}
+
+	/**
+	 * Records a duration.
+	 * 
+	 * @param nanos
+	 *            The duration in nanoseconds, counted as 0 if it is negative.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucket(value));
+		total.incrementAndGet();
+		sum.addAndGet(value);
+		if (value > max.get())
+			max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Gives the number of durations recorded.
+	 * 
+	 * @return Number of durations.
+	 */
+	public long count() {
+		return total.get();
+	}
+
+	/**
+	 * Gives the mean of the durations recorded.
+	 * 
+	 * @return Mean duration in nanoseconds, 0 if there are none.
+	 */
+	public double mean() {
+		long n = total.get();
+		return n > 0 ? (double) sum.get() / n : 0;
+	}
+
+	/**
+	 * Gives the longest duration recorded.
+	 * 
+	 * @return Longest duration in nanoseconds, 0 if there are none.
+	 */
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * Gives a quantile of the durations recorded.
+	 * 
+	 * @param p
+	 *            The quantile, from 0 to 1.
+	 * @return The largest value of the bucket of the quantile in nanoseconds, 0
+	 *         if there are no durations.
+	 */
+	public long quantile(double p) {
+		return quantile(p, null);
+	}
+
+	/**
+	 * Gives a quantile of the durations recorded since the counts were copied
+	 * by copyCounts(), without allocating.
+	 * 
+	 * @param p
+	 *            The quantile, from 0 to 1.
+	 * @param since
+	 *            Counts copied earlier, null for all the durations.
+	 * @return The largest value of the bucket of the quantile in nanoseconds, 0
+	 *         if there are no durations.
+	 */
+	public long quantile(double p, long[] since) {
+		long n = 0;
+		int last = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			long c = counts.get(b) - (since != null ? since[b] : 0);
+			if (c > 0) {
+				n += c;
+				last = b;
+			}
+		}
+		if (n == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(p * n));
+		for (int b = 0; b <= last; b++) {
+			rank -= counts.get(b) - (since != null ? since[b] : 0);
+			if (rank <= 0)
+				return Math.min(upper(b), max.get());
+		}
+		return Math.min(upper(last), max.get());
+	}
+
+	/**
+	 * Copies the count of each bucket, so that the durations recorded after it
+	 * can be told apart.
+	 * 
+	 * @param into
+	 *            Array of BUCKETS counts the counts are copied to.
+	 */
+	public void copyCounts(long[] into) {
+		for (int b = 0; b < BUCKETS; b++)
+			into[b] = counts.get(b);
+	}
+
+}
\ No newline at end of file
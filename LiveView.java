@@ -0,0 +1,245 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 256 -nest 100,100,2000 -food 200,200,5000 -live 30
+ *
+ * Implementation of the LiveView Object.
+ *
+ */
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+
+public class LiveView {
+
+	private int size; // Size of the NxN field.
+	private GridRenderer renderer; // Draws the frames.
+	private Display display; // Shows the frames.
+	private long framePeriod; // Least time between two frames in nanoseconds.
+	private Snapshot back; // Snapshot the simulation fills next, only used by the simulation thread.
+	private AtomicReference<Snapshot> latest; // Snapshot that was published last, or handed back by the render thread.
+	private long published; // Number of snapshots published, only used by the simulation thread.
+	private volatile long shown; // Number of snapshots that were drawn.
+	private volatile boolean closed; // Whether the render thread has to stop.
+	private Thread thread; // The render thread.
+
+	/**
+	 * Where the frames of a live view are shown.
+	 */
+	public interface Display {
+
+		/**
+		 * Shows a frame. It is called by the render thread, which draws into the
+		 * other of its two images while this one is shown.
+		 * 
+		 * @param frame
+		 *            Image of the field.
+		 * @param time
+		 *            Point in time of the field.
+		 */
+		void show(BufferedImage frame, int time);
+
+	}
+
+	/**
+	 * A copy of the field at a point in time, packed by CellGrid.pack(). It does
+	 * not change while the render thread holds it.
+	 */
+	private static class Snapshot {
+
+		private int[] cells; // The packed cells.
+		private int time; // Point in time of the copy.
+		private long sequence; // Number of the snapshot, in the order they were published.
+
+		Snapshot(int cellCount) {
+			cells = new int[cellCount];
+		}
+
+	}
+
+	/**
+	 * LiveView Object constructor. The simulation thread publishes snapshots of
+	 * the field and a render thread draws the latest one at most fps times per
+	 * second. There are three snapshots: the one the simulation fills, the one
+	 * the render thread draws and the latest one published, which the other two
+	 * swap theirs with. Neither thread ever waits for the other, snapshots that
+	 * are published faster than they are drawn are dropped, and no memory is
+	 * allocated once the view is running.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param renderer
+	 *            Draws the frames.
+	 * @param fps
+	 *            Most frames drawn per second.
+	 * @param display
+	 *            Shows the frames.
+	 */
+	public LiveView(int size, GridRenderer renderer, int fps, Display display) {
+		if (fps <= 0)
+			throw new IllegalArgumentException("Frames per second must be positive: " + fps);
+		this.size = size;
+		this.renderer = renderer;
+		this.display = display;
+		framePeriod = 1000000000L / fps;
+		back = new Snapshot(size * size);
+		latest = new AtomicReference<>(new Snapshot(size * size));
+		thread = new Thread(this::draw, "LiveView");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Creates a live view that shows the frames in a window.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param renderer
+	 *            Draws the frames.
+	 * @param fps
+	 *            Most frames drawn per second.
+	 * @return The live view.
+	 */
+	public static LiveView inWindow(int size, GridRenderer renderer, int fps) {
+		return new LiveView(size, renderer, fps, new Window(size * renderer.getCellPixels()));
+	}
+
+	/**
+	 * Publishes a snapshot of the field. It is called by the simulation thread
+	 * between two points in time, and it only copies the field, without waiting
+	 * for the render thread.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param time
+	 *            Current point in time.
+	 */
+	public void publish(CellGrid grid, int time) {
+		grid.pack(back.cells);
+		back.time = time;
+		back.sequence = ++published;
+		back = latest.getAndSet(back);
+	}
+
+	/**
+	 * Body of the render thread: draws the latest snapshot whenever one has been
+	 * published since the last frame, at most once per frame period.
+	 */
+	private void draw() {
+		Snapshot front = new Snapshot(size * size);
+		int side = size * renderer.getCellPixels();
+		BufferedImage[] frames = new BufferedImage[2];
+		for (int i = 0; i < frames.length; i++)
+			frames[i] = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+		int next = 0;
+		long deadline = System.nanoTime();
+		while (true) {
+			boolean last = closed; // The snapshot published before close() is still drawn.
+			if (latest.get().sequence > front.sequence) {
+				front = latest.getAndSet(front);
+				BufferedImage frame = frames[next];
+				next ^= 1;
+				renderer.render(size, front.cells, ((DataBufferInt) frame.getRaster().getDataBuffer()).getData(), side);
+				display.show(frame, front.time);
+				shown++;
+			}
+			if (last)
+				return;
+			deadline = Math.max(deadline + framePeriod, System.nanoTime());
+			LockSupport.parkNanos(deadline - System.nanoTime());
+		}
+	}
+
+	/**
+	 * Gives the number of snapshots that were drawn.
+	 * 
+	 * @return Frames drawn.
+	 */
+	public long framesShown() {
+		return shown;
+	}
+
+	/**
+	 * Gives the number of snapshots that were published.
+	 * 
+	 * @return Snapshots published.
+	 */
+	public long framesPublished() {
+		return published;
+	}
+
+	/**
+	 * Draws the latest snapshot, if it has not been drawn, and stops the render
+	 * thread. The window of the view, if any, stays open.
+	 * 
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while the render thread finishes.
+	 */
+	public void close() throws InterruptedException {
+		closed = true;
+		LockSupport.unpark(thread);
+		thread.join();
+	}
+
+	/**
+	 * A window that shows the latest frame.
+	 */
+	private static class Window implements Display {
+
+		private JFrame window; // The window.
+		private JComponent canvas; // Paints the frame shown.
+		private volatile BufferedImage image; // The frame shown, null before the first one.
+
+		Window(int side) {
+			try {
+				SwingUtilities.invokeAndWait(() -> {
+					canvas = new JComponent() {
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						protected void paintComponent(Graphics g) {
+							BufferedImage shown = image;
+							if (shown != null)
+								g.drawImage(shown, 0, 0, null);
+						}
+					};
+					canvas.setPreferredSize(new Dimension(side, side));
+					window = new JFrame("Ant colonies");
+					window.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+					window.setContentPane(new JScrollPane(canvas));
+					window.pack();
+					window.setVisible(true);
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (InvocationTargetException e) {
+				throw new IllegalStateException("Cannot open the window", e.getCause());
+			}
+		}
+
+		@Override
+		public void show(BufferedImage frame, int time) {
+			image = frame;
+			SwingUtilities.invokeLater(() -> {
+				window.setTitle("Ant colonies - time " + time);
+				canvas.repaint();
+			});
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -16,6 +16,10 @@
  *
  *   - see also GrayPicture.java for a grayscale version
  *
+ *   - the bulk methods (getARGB, setARGB, scale, crop, pad) work on packed
+ *     ARGB ints and split the rows into bands that run on the common
+ *     ForkJoin pool, without creating a Color for every pixel
+ *
  ******************************************************************************/
 
 import java.awt.Color;
@@ -25,9 +29,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
@@ -64,6 +72,7 @@ public final class Picture implements ActionListener {
     private String filename;                   // name of file
     private boolean isOriginUpperLeft = true;  // location of origin
     private final int width, height;           // width and height
+    private static final int BAND = 64;        // rows per task of the bulk methods
 
    /**
      * Initializes a blank <tt>width</tt>-by-<tt>height</tt> picture, with <tt>width</tt> columns
@@ -84,6 +93,8 @@ public final class Picture implements ActionListener {
 
    /**
      * Initializes a new picture that is a deep copy of the argument picture.
+     * The copy has its origin in the upper left, with the rows in the order
+     * of the argument picture, so that both give the same <tt>get()</tt>.
      *
      * @param picture the picture to copy
      */
@@ -92,9 +103,11 @@ public final class Picture implements ActionListener {
         height = picture.height();
         image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         filename = picture.filename;
-        for (int col = 0; col < width(); col++)
-            for (int row = 0; row < height(); row++)
-                image.setRGB(col, row, picture.get(col, row).getRGB());
+        int[] src = picture.pixels(), dst = pixels();
+        inBands(height, (from, to) -> {
+            for (int r = from; r < to; r++)
+                System.arraycopy(src, picture.rawRow(r) * width, dst, r * width, width);
+        });
     }
 
    /**
@@ -131,6 +144,7 @@ public final class Picture implements ActionListener {
         if (image == null) {
             throw new RuntimeException("Invalid image file: " + filename);
         }
+        image = toIntRGB(image);
     }
 
    /**
@@ -152,6 +166,29 @@ public final class Picture implements ActionListener {
         width  = image.getWidth(null);
         height = image.getHeight(null);
         filename = file.getName();
+        image = toIntRGB(image);
+    }
+
+   /**
+     * Returns the image itself if it keeps its pixels as packed RGB ints,
+     * or a copy of it that does, so that the bulk methods can work on them.
+     */
+    private static BufferedImage toIntRGB(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) return image;
+        int w = image.getWidth(), h = image.getHeight();
+        BufferedImage copy = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) copy.getRaster().getDataBuffer()).getData();
+        image.getRGB(0, 0, w, h, data, 0, w);
+        for (int i = 0; i < data.length; i++)
+            data[i] &= 0xFFFFFF;                // as setRGB would store it
+        return copy;
+    }
+
+   /**
+     * Returns the packed RGB pixels of the image, row after row from the top.
+     */
+    private int[] pixels() {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
     }
 
    /**
@@ -266,6 +303,185 @@ public final class Picture implements ActionListener {
         else                   image.setRGB(col, height - row - 1, color.getRGB());
     }
 
+   /**
+     * Copies the pixels of a rectangular region into an array of packed
+     * ARGB ints, row after row, without creating a <tt>Color</tt> for each.
+     *
+     * @param col the column of the first pixel of the region
+     * @param row the row of the first pixel of the region
+     * @param w the width of the region
+     * @param h the height of the region
+     * @param argb the array the pixels are copied to
+     * @param offset the position in the array of the first pixel
+     * @param scan the distance in the array between two rows of the region
+     * @throws IndexOutOfBoundsException unless the region is inside the picture
+     */
+    public void getARGB(int col, int row, int w, int h, int[] argb, int offset, int scan) {
+        checkRegion(col, row, w, h);
+        int[] data = pixels();
+        inBands(h, (from, to) -> {
+            for (int r = from; r < to; r++) {
+                int src = rawRow(row + r) * width + col;
+                int dst = offset + r * scan;
+                for (int c = 0; c < w; c++)
+                    argb[dst + c] = data[src + c] | 0xFF000000;
+            }
+        });
+    }
+
+   /**
+     * Sets the pixels of a rectangular region from an array of packed ARGB
+     * ints, row after row. The alpha channel is ignored.
+     *
+     * @param col the column of the first pixel of the region
+     * @param row the row of the first pixel of the region
+     * @param w the width of the region
+     * @param h the height of the region
+     * @param argb the array the pixels are copied from
+     * @param offset the position in the array of the first pixel
+     * @param scan the distance in the array between two rows of the region
+     * @throws IndexOutOfBoundsException unless the region is inside the picture
+     */
+    public void setARGB(int col, int row, int w, int h, int[] argb, int offset, int scan) {
+        checkRegion(col, row, w, h);
+        int[] data = pixels();
+        inBands(h, (from, to) -> {
+            for (int r = from; r < to; r++) {
+                int dst = rawRow(row + r) * width + col;
+                int src = offset + r * scan;
+                for (int c = 0; c < w; c++)
+                    data[dst + c] = argb[src + c] & 0xFFFFFF;
+            }
+        });
+    }
+
+   /**
+     * Returns a new picture of the given size, where pixel (<tt>tx</tt>, <tt>ty</tt>)
+     * is pixel (<tt>tx * width / w</tt>, <tt>ty * height / h</tt>) of this picture,
+     * counting from its origin as <tt>get()</tt> does. The new picture has its
+     * origin in the upper left.
+     *
+     * @param w the width of the new picture
+     * @param h the height of the new picture
+     * @return the scaled picture
+     */
+    public Picture scale(int w, int h) {
+        Picture scaled = new Picture(w, h);
+        int[] src = pixels(), dst = scaled.pixels();
+        int[] sourceCol = new int[w];
+        for (int tx = 0; tx < w; tx++)
+            sourceCol[tx] = (int) ((long) tx * width / w);
+        inBands(h, (from, to) -> {
+            for (int ty = from; ty < to; ty++) {
+                int s = rawRow((int) ((long) ty * height / h)) * width;
+                int d = ty * w;
+                for (int tx = 0; tx < w; tx++)
+                    dst[d + tx] = src[s + sourceCol[tx]];
+            }
+        });
+        return scaled;
+    }
+
+   /**
+     * Returns a new picture with a rectangular region of this picture,
+     * counting from its origin as <tt>get()</tt> does. The new picture has its
+     * origin in the upper left.
+     *
+     * @param col the column of the first pixel of the region
+     * @param row the row of the first pixel of the region
+     * @param w the width of the region
+     * @param h the height of the region
+     * @return the cropped picture
+     * @throws IndexOutOfBoundsException unless the region is inside the picture
+     */
+    public Picture crop(int col, int row, int w, int h) {
+        checkRegion(col, row, w, h);
+        Picture cropped = new Picture(w, h);
+        int[] src = pixels(), dst = cropped.pixels();
+        inBands(h, (from, to) -> {
+            for (int r = from; r < to; r++)
+                System.arraycopy(src, rawRow(row + r) * width + col, dst, r * w, w);
+        });
+        return cropped;
+    }
+
+   /**
+     * Returns a new picture of the given size filled with the given colour,
+     * with pixel (0, 0) of this picture, counting from its origin as
+     * <tt>get()</tt> does, at (<tt>col</tt>, <tt>row</tt>). The new picture has
+     * its origin in the upper left. The parts that fall outside are left out.
+     *
+     * @param w the width of the new picture
+     * @param h the height of the new picture
+     * @param col the column of the new picture this picture starts at
+     * @param row the row of the new picture this picture starts at
+     * @param argb the colour of the rest of the new picture, as packed ARGB
+     * @return the padded picture
+     */
+    public Picture pad(int w, int h, int col, int row, int argb) {
+        Picture padded = new Picture(w, h);
+        int[] src = pixels(), dst = padded.pixels();
+        int fill = argb & 0xFFFFFF;
+        int first = Math.max(0, col), last = Math.min(w, col + width);   // columns covered
+        inBands(h, (from, to) -> {
+            for (int r = from; r < to; r++) {
+                int d = r * w;
+                int sr = r - row;
+                if (sr < 0 || sr >= height || first >= last) {
+                    Arrays.fill(dst, d, d + w, fill);
+                    continue;
+                }
+                Arrays.fill(dst, d, d + first, fill);
+                System.arraycopy(src, rawRow(sr) * width + first - col, dst, d + first, last - first);
+                Arrays.fill(dst, d + last, d + w, fill);
+            }
+        });
+        return padded;
+    }
+
+    // row of the image that holds row r of the picture
+    private int rawRow(int r) {
+        return isOriginUpperLeft ? r : height - r - 1;
+    }
+
+    private void checkRegion(int col, int row, int w, int h) {
+        if (col < 0 || row < 0 || w < 0 || h < 0 || col + w > width || row + h > height)
+            throw new IndexOutOfBoundsException("region is not inside the picture");
+    }
+
+    // body of a bulk method, run over rows from (inclusive) to to (exclusive)
+    private interface RowBand {
+        void run(int from, int to);
+    }
+
+    // runs the body over bands of rows on the common ForkJoin pool
+    private static void inBands(int rows, RowBand body) {
+        if (rows <= BAND) body.run(0, rows);
+        else              ForkJoinPool.commonPool().invoke(new Bands(body, 0, rows));
+    }
+
+    private static final class Bands extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final RowBand body;
+        private final int from, to;
+
+        Bands(RowBand body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BAND) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Bands(body, from, mid), new Bands(body, mid, to));
+        }
+    }
+
    /**
      * Returns true if this picture is equal to the argument picture.
      *
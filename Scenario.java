@@ -0,0 +1,678 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 64 -nest 10,10 -nest 50,50 -food 30,30,500
+ *
+ * Implementation of the Scenario Object.
+ *
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class Scenario {
+
+	private int size = 5; // Size of the NxN field.
+	private ArrayList<int[]> nests = new ArrayList<>(); // Row, column and number of ants of each nest.
+	private ArrayList<int[]> food = new ArrayList<>(); // Row, column and seeds of each food source.
+	private ArrayList<int[]> obstacles = new ArrayList<>(); // Corners, point in time (-1 for the start) and kind of each rectangle of obstacles.
+	private int antsPerNest = 10; // Number of ants of a nest that does not give its own.
+	private int scentDuration = 50; // Maximum life time of a scent.
+	private float decay; // Part of the scent level that evaporates at each point in time, 0 to keep scent units.
+	private float diffusion; // Part of the scent level that spreads to the neighbours at each point in time.
+	private boolean ownScent; // Whether each tribe only follows its own scent.
+	private long seed = System.nanoTime(); // Seed of the simulation.
+	private boolean seedOrScent; // Whether -seed or -scent is given, which a checkpoint already holds.
+	private long tickLimit = Long.MAX_VALUE; // Last point in time to run.
+	private int threads = Runtime.getRuntime().availableProcessors(); // Threads that plan the steps.
+	private Path file; // Scenario file the field is loaded from, null if it is given by the options.
+	private Path saveFile; // Scenario file the field is written to before it runs, null if it is not.
+	private Path resumeFile; // Checkpoint file the simulation is resumed from, null if it starts afresh.
+	private Path checkpointFile; // Checkpoint file written while the simulation runs, null if none is.
+	private int checkpointEvery = 100000; // Points in time between two checkpoints.
+	private Path traceFile; // Event log the traced ants are recorded in, null if none are.
+	private int traceColony = -1; // Index of the only tribe that is traced, -1 for all of them.
+	private int[] traceAnts; // Sorted IDs of the only ants that are traced, null for all of them.
+	private Path imageFile; // PNG file the field is rendered to at the end, null if it is not.
+	private int imagePixels; // Width of a cell in the image in pixels, 0 to fit the field in about 1024 pixels.
+	private boolean imageScent; // Whether the image shows the scent.
+	private int liveFps; // Most frames per second of the live view, 0 if there is none.
+	private int liveEvery = 1; // Points in time between two snapshots of the live view.
+	private Path exportDirectory; // Directory the frames are written to as PNG files, null if they are not.
+	private Path exportRaw; // File or named pipe the frames are written to as a raw stream, null if they are not.
+	private int exportEvery = 1; // Points in time between two exported frames.
+	private int exportThreads = Runtime.getRuntime().availableProcessors(); // Threads that draw and write the frames.
+	private int exportQueue = 16; // Most frames that wait to be written before the simulation waits.
+	private Path heatmapFile; // Binary file the counts of each cell are written to at the end, null if it is not.
+	private Path heatmapImage; // PNG file a layer of the counts is rendered to at the end, null if it is not.
+	private int heatmapLayer = Heatmap.VISITS; // Layer of the counts that is rendered.
+	private Path metricsFile; // CSV file the metrics of the engine are written to, null if they are not.
+	private int metricsEvery = 1000; // Points in time between two lines of the CSV file.
+	private boolean jmx; // Whether the metrics of the engine are published over JMX.
+	private EngineMetrics metrics; // Metrics of the engine, made by createMetrics(), null if there are none.
+
+	/**
+	 * Reads a scenario from the command line. The options are:
+	 * <ul>
+	 * <li>-size N: size of the NxN field (5).</li>
+	 * <li>-nest X,Y[,ANTS]: a nest, with its own tribe, at row X and column Y.
+	 * Given once for each nest.</li>
+	 * <li>-ants N: number of ants of the nests that do not give their own
+	 * (10).</li>
+	 * <li>-food X,Y,SEEDS: a food source at row X and column Y. Given once for
+	 * each food source.</li>
+	 * <li>-wall X1,Y1,X2,Y2[,T]: walls, which ants cannot cross, on the cells
+	 * from row X1 and column Y1 to row X2 and column Y2, built at the start of
+	 * point in time T (before the field runs). Nests and food sources are left
+	 * open, and so are the cells that have ants on them at point in time T,
+	 * which stay open for good rather than waiting for the ants to leave, so
+	 * that no ant is ever shut in. Given once for each rectangle.</li>
+	 * <li>-water X1,Y1,X2,Y2[,T]: water, which ants cannot cross either, on the
+	 * cells of the rectangle.</li>
+	 * <li>-clear X1,Y1,X2,Y2,T: takes the walls and water of the rectangle away
+	 * at the start of point in time T.</li>
+	 * <li>-scent N: maximum life time of a scent (50).</li>
+	 * <li>-decay F: keep the scent as levels instead of units, of which the part
+	 * F, above 0 and below 1, evaporates at each point in time. Each step an ant
+	 * leaves scent on adds 1 to the level of the cell.</li>
+	 * <li>-diffusion D: part of the scent level, from 0 to 1, that spreads evenly
+	 * to the four neighbours of each cell at each point in time (0). Only used
+	 * with -decay.</li>
+	 * <li>-ownScent true|false: whether each tribe leaves and follows only its
+	 * own scent units, at most 255 of them on a cell (false). On a busy cell
+	 * that already holds 255 units of the tribe an ant leaves no scent, so the
+	 * trails are weaker there than without it. Cannot be used with -decay.</li>
+	 * <li>-seed N: seed of the simulation (the current time).</li>
+	 * <li>-ticks N: last point in time to run (no limit).</li>
+	 * <li>-threads N: threads that plan the steps (the processors).</li>
+	 * <li>-file PATH: load the field, its nests and its food from a scenario
+	 * file, instead of -size, -nest, -ants and -food.</li>
+	 * <li>-save PATH: write the field to a scenario file before it runs.</li>
+	 * <li>-resume PATH: go on with a simulation from a checkpoint file, instead
+	 * of -size, -nest, -ants, -food, -wall, -water, -clear, -scent, -seed and
+	 * -file.</li>
+	 * <li>-checkpoint PATH: write a checkpoint file while the simulation
+	 * runs.</li>
+	 * <li>-every N: points in time between two checkpoints (100000).</li>
+	 * <li>-trace PATH: record the traced ants in a binary event log, which is
+	 * printed by EventLogDecoder.</li>
+	 * <li>-traceAnts ID,ID,...|all: the ants that are traced (all).</li>
+	 * <li>-traceColony C: only trace the ants of the C-th tribe, counting from 0
+	 * (all tribes).</li>
+	 * <li>-image PATH: render the field to a PNG file at the end.</li>
+	 * <li>-pixels N: width of a cell in the image in pixels (as many as fit the
+	 * field in 1024 pixels, at least 1).</li>
+	 * <li>-imageScent true|false: whether the image shows the scent (false).</li>
+	 * <li>-live FPS: show the field in a window while it runs, drawn at most FPS
+	 * times per second. -pixels and -imageScent apply to it too.</li>
+	 * <li>-liveEvery N: points in time between two snapshots of the field drawn
+	 * by the live view (1).</li>
+	 * <li>-export DIR: write frames of the field to numbered PNG files in the
+	 * directory while it runs. -pixels and -imageScent apply to them too.</li>
+	 * <li>-exportRaw PATH: write the frames one after the other to a file or a
+	 * named pipe as raw rgb24 video, e.g. for ffmpeg.</li>
+	 * <li>-exportEvery N: points in time between two frames (1).</li>
+	 * <li>-exportThreads N: threads that draw and write the frames (the
+	 * processors).</li>
+	 * <li>-exportQueue N: most frames that wait to be written before the
+	 * simulation waits for them (16).</li>
+	 * <li>-heatmap PATH: count the moves onto each cell, its scent-ticks and the
+	 * seeds picked up from and delivered to it, and write them to a binary file
+	 * at the end.</li>
+	 * <li>-heatmapImage PATH: render a layer of the counts as a heatmap to a PNG
+	 * file at the end. -pixels applies to it too.</li>
+	 * <li>-heatmapLayer visits|scent|pickups|deliveries: the layer that is
+	 * rendered (visits).</li>
+	 * <li>-metrics PATH: count the moves, pickups, deliveries and scent of the
+	 * ants and time the steps, the scent updates and the rendering, and write
+	 * them to a CSV file while the simulation runs.</li>
+	 * <li>-metricsEvery N: points in time between two lines of the CSV file
+	 * (1000).</li>
+	 * <li>-jmx true|false: publish the same metrics as the MBean
+	 * AntColonies:type=EngineMetrics (false).</li>
+	 * </ul>
+	 * 
+	 * @param args
+	 *            Command line arguments.
+	 * @return The scenario.
+	 * @throws IllegalArgumentException
+	 *             If an option is unknown, or its value is missing or invalid.
+	 */
+	public static Scenario parse(String[] args) {
+		Scenario s = new Scenario();
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value of " + args[i]);
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "-size":
+				s.size = positive(args[i], value);
+				break;
+			case "-nest":
+				s.nests.add(numbers(args[i], value, 2, 3));
+				break;
+			case "-ants":
+				s.antsPerNest = positive(args[i], value);
+				break;
+			case "-food":
+				s.food.add(numbers(args[i], value, 3, 3));
+				break;
+			case "-wall":
+			case "-water":
+			case "-clear":
+				s.obstacles.add(obstacle(args[i], value));
+				break;
+			case "-scent":
+				s.scentDuration = positive(args[i], value);
+				s.seedOrScent = true;
+				break;
+			case "-decay":
+				s.decay = Float.parseFloat(value);
+				if (!(s.decay > 0 && s.decay < 1))
+					throw new IllegalArgumentException("-decay must be above 0 and below 1: " + value);
+				break;
+			case "-diffusion":
+				s.diffusion = Float.parseFloat(value);
+				if (!(s.diffusion >= 0 && s.diffusion <= 1))
+					throw new IllegalArgumentException("-diffusion must be from 0 to 1: " + value);
+				break;
+			case "-ownScent":
+				s.ownScent = Boolean.parseBoolean(value);
+				break;
+			case "-seed":
+				s.seed = Long.parseLong(value);
+				s.seedOrScent = true;
+				break;
+			case "-ticks":
+				s.tickLimit = Long.parseLong(value);
+				break;
+			case "-threads":
+				s.threads = positive(args[i], value);
+				break;
+			case "-file":
+				s.file = Paths.get(value);
+				break;
+			case "-save":
+				s.saveFile = Paths.get(value);
+				break;
+			case "-resume":
+				s.resumeFile = Paths.get(value);
+				break;
+			case "-checkpoint":
+				s.checkpointFile = Paths.get(value);
+				break;
+			case "-every":
+				s.checkpointEvery = positive(args[i], value);
+				break;
+			case "-trace":
+				s.traceFile = Paths.get(value);
+				break;
+			case "-traceAnts":
+				s.traceAnts = value.equals("all") ? null : numbers(args[i], value, 1, Integer.MAX_VALUE);
+				if (s.traceAnts != null)
+					Arrays.sort(s.traceAnts);
+				break;
+			case "-image":
+				s.imageFile = Paths.get(value);
+				break;
+			case "-pixels":
+				s.imagePixels = positive(args[i], value);
+				break;
+			case "-imageScent":
+				s.imageScent = Boolean.parseBoolean(value);
+				break;
+			case "-live":
+				s.liveFps = positive(args[i], value);
+				break;
+			case "-liveEvery":
+				s.liveEvery = positive(args[i], value);
+				break;
+			case "-export":
+				s.exportDirectory = Paths.get(value);
+				break;
+			case "-exportRaw":
+				s.exportRaw = Paths.get(value);
+				break;
+			case "-exportEvery":
+				s.exportEvery = positive(args[i], value);
+				break;
+			case "-exportThreads":
+				s.exportThreads = positive(args[i], value);
+				break;
+			case "-exportQueue":
+				s.exportQueue = positive(args[i], value);
+				break;
+			case "-heatmap":
+				s.heatmapFile = Paths.get(value);
+				break;
+			case "-heatmapImage":
+				s.heatmapImage = Paths.get(value);
+				break;
+			case "-heatmapLayer":
+				s.heatmapLayer = Arrays.asList(Heatmap.LAYERS).indexOf(value);
+				if (s.heatmapLayer < 0)
+					throw new IllegalArgumentException("Unknown layer of -heatmapLayer: " + value);
+				break;
+			case "-metrics":
+				s.metricsFile = Paths.get(value);
+				break;
+			case "-metricsEvery":
+				s.metricsEvery = positive(args[i], value);
+				break;
+			case "-jmx":
+				s.jmx = Boolean.parseBoolean(value);
+				break;
+			case "-traceColony":
+				s.traceColony = Integer.parseInt(value);
+				if (s.traceColony < 0)
+					throw new IllegalArgumentException("-traceColony must not be negative: " + value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		s.check();
+		return s;
+	}
+
+	/**
+	 * Reads a positive number.
+	 */
+	private static int positive(String option, String value) {
+		int n = Integer.parseInt(value);
+		if (n <= 0)
+			throw new IllegalArgumentException(option + " must be positive: " + value);
+		return n;
+	}
+
+	/**
+	 * Reads a rectangle of obstacles: its corners, the point in time it is
+	 * placed at and the kind of cell it is given.
+	 */
+	private static int[] obstacle(String option, String value) {
+		boolean clear = option.equals("-clear");
+		int[] n = Arrays.copyOf(numbers(option, value, clear ? 5 : 4, 5), 6);
+		if (value.split(",").length == 4)
+			n[4] = -1;
+		else if (n[4] < 0)
+			throw new IllegalArgumentException("Negative point in time of " + option + ": " + value);
+		n[5] = clear ? CellGrid.OPEN : option.equals("-wall") ? CellGrid.WALL : CellGrid.WATER;
+		return n;
+	}
+
+	/**
+	 * Reads a list of numbers separated by commas, of the given length.
+	 */
+	private static int[] numbers(String option, String value, int min, int max) {
+		String[] parts = value.split(",");
+		if (parts.length < min || parts.length > max)
+			throw new IllegalArgumentException("Invalid value of " + option + ": " + value);
+		int[] n = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			n[i] = Integer.parseInt(parts[i].trim());
+		return n;
+	}
+
+	/**
+	 * Checks that the nests and the food sources are on the field, and that no
+	 * food source is on a nest, unless the field comes from a file or a
+	 * checkpoint.
+	 */
+	private void check() {
+		if (diffusion > 0 && decay == 0)
+			throw new IllegalArgumentException("-diffusion needs -decay");
+		if (ownScent && decay > 0)
+			throw new IllegalArgumentException("-ownScent cannot be used with -decay");
+		if (resumeFile != null) {
+			if (file != null || saveFile != null || !nests.isEmpty() || !food.isEmpty() || !obstacles.isEmpty()
+					|| decay > 0 || ownScent || seedOrScent)
+				throw new IllegalArgumentException("-resume cannot be used with -file, -save, -nest, -food, -wall,"
+						+ " -water, -clear, -scent, -seed, -decay or -ownScent");
+			return;
+		}
+		if (file != null) {
+			if (!nests.isEmpty() || !food.isEmpty())
+				throw new IllegalArgumentException("-file cannot be used with -nest or -food");
+			return;
+		}
+		if (nests.isEmpty())
+			throw new IllegalArgumentException("At least one -nest is needed");
+		for (int[] nest : nests) {
+			checkCell(nest);
+			if (nest.length == 3 && nest[2] < 0)
+				throw new IllegalArgumentException("Negative number of ants at " + nest[0] + "," + nest[1]);
+		}
+		for (int[] source : food) {
+			checkCell(source);
+			if (source[2] < 0)
+				throw new IllegalArgumentException("Negative seeds at " + source[0] + "," + source[1]);
+			for (int[] nest : nests)
+				if (nest[0] == source[0] && nest[1] == source[1])
+					throw new IllegalArgumentException("Food source on the nest at " + nest[0] + "," + nest[1]);
+		}
+	}
+
+	private void checkCell(int[] cell) {
+		if (cell[0] < 0 || cell[0] >= size || cell[1] < 0 || cell[1] >= size)
+			throw new IllegalArgumentException(cell[0] + "," + cell[1] + " is outside the field");
+	}
+
+	/**
+	 * Creates the field, its tribes and food sources, ready to run, and writes
+	 * them to the -save file if one was given. A simulation that is resumed is
+	 * read from its checkpoint instead. The obstacles that are placed at the
+	 * start are placed before the field is written, and the ones that are
+	 * placed later are scheduled.
+	 * 
+	 * @return The simulation of the scenario.
+	 * @throws IOException
+	 *             If the scenario or checkpoint file cannot be read or written.
+	 * @throws IllegalArgumentException
+	 *             If a rectangle of obstacles is outside the field.
+	 */
+	public Simulation build() throws IOException {
+		Simulation sim;
+		if (resumeFile != null)
+			sim = Checkpoint.resume(resumeFile, threads);
+		else
+			sim = file != null ? ScenarioFile.load(file, seed, scentDuration, threads) : create();
+		int fieldSize = sim.getGrid().getSize();
+		if (decay > 0)
+			sim.getGrid().useScentField(new ScentField(fieldSize, decay, diffusion));
+		if (ownScent)
+			sim.getGrid().useTribeScent(sim.getColonies().length);
+		for (int[] rect : obstacles) {
+			if (Math.min(rect[0], rect[2]) < 0 || Math.max(rect[0], rect[2]) >= fieldSize
+					|| Math.min(rect[1], rect[3]) < 0 || Math.max(rect[1], rect[3]) >= fieldSize)
+				throw new IllegalArgumentException("Rectangle " + rect[0] + "," + rect[1] + "," + rect[2] + ","
+						+ rect[3] + " is outside the field");
+			if (rect[4] < 0)
+				sim.getGrid().putObstacles(rect[0], rect[1], rect[2], rect[3], (byte) rect[5]);
+			else
+				sim.schedule(rect);
+		}
+		if (saveFile != null)
+			ScenarioFile.save(saveFile, sim.getGrid(), sim.getColonies());
+		return sim;
+	}
+
+	/**
+	 * Creates another simulation of the scenario with its own seed, for an
+	 * ensemble of runs. The field is copied from a simulation made by build(),
+	 * which has not run, so the scenario is only loaded once, and the obstacles
+	 * that are placed later are scheduled again. It plans the steps on the
+	 * calling thread.
+	 * 
+	 * @param template
+	 *            Simulation made by build() that has not run.
+	 * @param runSeed
+	 *            Seed of the new simulation.
+	 * @return The new simulation, ready to run.
+	 */
+	public Simulation replicate(Simulation template, long runSeed) {
+		if (template.getTime() != 0)
+			throw new IllegalArgumentException("Only a simulation that has not run can be replicated");
+		CellGrid copy = new CellGrid(template.getGrid());
+		Colony[] colonies = new Colony[template.getColonies().length];
+		for (int c = 0; c < colonies.length; c++)
+			colonies[c] = new Colony(copy, template.getColonies()[c], runSeed);
+		Simulation sim = new Simulation(copy, colonies, template.getScentDuration(), 1);
+		for (int[] rect : template.getScheduled())
+			sim.schedule(rect);
+		return sim;
+	}
+
+	/**
+	 * Creates the field from the options.
+	 */
+	private Simulation create() {
+		CellGrid terain = new CellGrid(size);
+		Colony[] colonies = new Colony[nests.size()];
+		int nextId = 0;
+		for (int c = 0; c < colonies.length; c++) {
+			int[] nest = nests.get(c);
+			int[] ids = new int[nest.length == 3 ? nest[2] : antsPerNest];
+			for (int i = 0; i < ids.length; i++)
+				ids[i] = nextId++;
+			colonies[c] = new Colony(terain, "Colony-" + c, nest[0], nest[1], ids, seed);
+		}
+		for (int[] source : food)
+			terain.putFood(source[0], source[1], source[2]);
+		return new Simulation(terain, colonies, scentDuration, threads);
+	}
+
+	/**
+	 * Gives the seed of the simulation.
+	 * 
+	 * @return Seed of the simulation.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Gives the event log the traced ants are recorded in.
+	 * 
+	 * @return Event log file, null if no ants are traced.
+	 */
+	public Path getTraceFile() {
+		return traceFile;
+	}
+
+	/**
+	 * Gives the index of the only tribe whose ants are traced.
+	 * 
+	 * @return Index of the tribe, -1 for all tribes.
+	 */
+	public int getTraceColony() {
+		return traceColony;
+	}
+
+	/**
+	 * Gives the IDs of the only ants that are traced.
+	 * 
+	 * @return Sorted IDs, null for all ants.
+	 */
+	public int[] getTraceAnts() {
+		return traceAnts;
+	}
+
+	/**
+	 * Gives the PNG file the field is rendered to at the end.
+	 * 
+	 * @return Image file, null if no image is rendered.
+	 */
+	public Path getImageFile() {
+		return imageFile;
+	}
+
+	/**
+	 * Gives the most frames per second of the live view.
+	 * 
+	 * @return Frames per second, 0 if there is no live view.
+	 */
+	public int getLiveFps() {
+		return liveFps;
+	}
+
+	/**
+	 * Gives the points in time between two snapshots of the live view.
+	 * 
+	 * @return Points in time between snapshots.
+	 */
+	public int getLiveEvery() {
+		return liveEvery;
+	}
+
+	/**
+	 * Creates the exporter of the frames of the field, if any frames are
+	 * exported.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @return The exporter, null if no frames are exported.
+	 * @throws IOException
+	 *             If the directory or the raw stream cannot be created.
+	 */
+	public FrameExporter createExporter(int size) throws IOException {
+		if (exportDirectory == null && exportRaw == null)
+			return null;
+		return new FrameExporter(size, createRenderer(size), exportDirectory, exportRaw, exportThreads, exportQueue);
+	}
+
+	/**
+	 * Creates the metrics of the engine, if they are written to a CSV file or
+	 * published over JMX, and registers them as an MBean if they are. Renderers
+	 * created afterwards time their rendering in them.
+	 * 
+	 * @return The metrics, null if they are not kept.
+	 * @throws IOException
+	 *             If the CSV file cannot be created or the MBean cannot be
+	 *             registered.
+	 */
+	public EngineMetrics createMetrics() throws IOException {
+		if (metricsFile == null && !jmx)
+			return null;
+		metrics = new EngineMetrics();
+		if (metricsFile != null)
+			metrics.openCsv(metricsFile);
+		if (jmx)
+			metrics.register();
+		return metrics;
+	}
+
+	/**
+	 * Gives the points in time between two lines of the CSV file of the
+	 * metrics.
+	 * 
+	 * @return Points in time between lines.
+	 */
+	public int getMetricsEvery() {
+		return metricsEvery;
+	}
+
+	/**
+	 * Returns whether the metrics of the engine are written to a CSV file while
+	 * the simulation runs.
+	 * 
+	 * @return If -metrics was given.
+	 */
+	public boolean writesMetrics() {
+		return metricsFile != null;
+	}
+
+	/**
+	 * Gives the points in time between two exported frames.
+	 * 
+	 * @return Points in time between frames.
+	 */
+	public int getExportEvery() {
+		return exportEvery;
+	}
+
+	/**
+	 * Returns whether the counts of each cell are kept for a heatmap.
+	 * 
+	 * @return If -heatmap or -heatmapImage was given.
+	 */
+	public boolean keepsHeatmap() {
+		return heatmapFile != null || heatmapImage != null;
+	}
+
+	/**
+	 * Writes the counts of each cell to the -heatmap file and renders the
+	 * -heatmapImage, if they were given.
+	 * 
+	 * @param heat
+	 *            The counts of each cell.
+	 * @param sim
+	 *            The simulation they were taken on.
+	 * @throws IOException
+	 *             If a file cannot be written.
+	 */
+	public void writeHeatmap(Heatmap heat, Simulation sim) throws IOException {
+		if (heatmapFile != null)
+			heat.write(heatmapFile, sim.getGrid(), sim.getTime());
+		if (heatmapImage != null)
+			createRenderer(sim.getGrid().getSize()).writeHeatmapPng(sim.getGrid().getSize(),
+					heat.layer(heatmapLayer, sim.getGrid(), sim.getTime()), heatmapImage);
+	}
+
+	/**
+	 * Creates the renderer of the image, the live view and the exported frames of
+	 * the field.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @return The renderer.
+	 */
+	public GridRenderer createRenderer(int size) {
+		GridRenderer renderer = new GridRenderer(cellPixels(size), imageScent);
+		if (metrics != null)
+			renderer.timeTo(metrics.getRenderTimes());
+		return renderer;
+	}
+
+	/**
+	 * Gives the width of a cell in the images in pixels.
+	 */
+	private int cellPixels(int size) {
+		return imagePixels > 0 ? imagePixels : Math.max(1, 1024 / size);
+	}
+
+	/**
+	 * Returns whether the run is recorded or shown in any way: traced,
+	 * checkpointed, rendered, exported, shown live, counted in a heatmap or
+	 * measured.
+	 * 
+	 * @return If any of the options that record the run was given.
+	 */
+	public boolean recordsRun() {
+		return traceFile != null || checkpointFile != null || imageFile != null || liveFps > 0
+				|| exportDirectory != null || exportRaw != null || keepsHeatmap() || metricsFile != null
+				|| jmx;
+	}
+
+	/**
+	 * Returns whether the simulation is resumed from a checkpoint.
+	 * 
+	 * @return If -resume was given.
+	 */
+	public boolean resumes() {
+		return resumeFile != null;
+	}
+
+	/**
+	 * Gives the checkpoint file written while the simulation runs.
+	 * 
+	 * @return Checkpoint file, null if no checkpoints are taken.
+	 */
+	public Path getCheckpointFile() {
+		return checkpointFile;
+	}
+
+	/**
+	 * Gives the number of points in time between two checkpoints.
+	 * 
+	 * @return Checkpoint period.
+	 */
+	public int getCheckpointEvery() {
+		return checkpointEvery;
+	}
+
+	/**
+	 * Gives the last point in time to run.
+	 * 
+	 * @return Point in time limit.
+	 */
+	public long getTickLimit() {
+		return tickLimit;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -file world.ants
+ *
+ * Reads and writes scenarios in a compact binary file. All numbers are big
+ * endian:
+ *
+ * int   magic number 0x414E5453 ("ANTS")
+ * int   version, 2
+ * int   size N of the NxN field
+ * int   number of nests, followed for each nest by
+ *       int colony, int row, int column, int number of ants
+ *       (each colony has one nest, so no two nests have the same colony)
+ * long  number of food runs, followed for each run by
+ *       int number of cells, int seeds on each of them
+ * long  number of obstacle runs, followed for each run by
+ *       int number of cells, int kind of each of them: 0 open, 1 wall, 2 water
+ *
+ * The food and obstacle runs cover the cells in the order of their indices
+ * (x*N+y), starting from the first cell. The cells after the last run have no
+ * seeds, or are open. Files of version 1 end after the food runs.
+ *
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+
+public class ScenarioFile {
+
+	private static final int MAGIC = 0x414E5453; // "ANTS"
+	private static final int VERSION = 2; // Version of the format.
+	private static final long WINDOW = 1L << 30; // Largest part of the file that is mapped at a time.
+
+	/**
+	 * Loads a scenario file. The file is mapped into memory a part at a time and
+	 * the food runs are written into the field as they are read. The ants of each
+	 * nest form a tribe, and their IDs follow the order of the nests in the file.
+	 * A tribe has one nest, so a file that gives a colony more than one nest is
+	 * not valid.
+	 * 
+	 * @param path
+	 *            The scenario file.
+	 * @param seed
+	 *            Seed of the simulation.
+	 * @param scentDuration
+	 *            Maximum life time of a scent.
+	 * @param threads
+	 *            Number of threads that plan the steps.
+	 * @return The simulation of the scenario, ready to run.
+	 * @throws IOException
+	 *             If the file cannot be read or is not a valid scenario file.
+	 */
+	public static Simulation load(Path path, long seed, int scentDuration, int threads) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			Window in = new Window(channel);
+			ByteBuffer buf = in.need(16);
+			if (buf.getInt() != MAGIC)
+				throw new IOException(path + " is not a scenario file");
+			int version = buf.getInt();
+			if (version != 1 && version != VERSION)
+				throw new IOException("Unsupported scenario version " + version);
+			int size = buf.getInt();
+			if (size <= 0 || (long) size * size > Integer.MAX_VALUE)
+				throw new IOException("Invalid field size " + size);
+			int nestCount = buf.getInt();
+			if (nestCount <= 0)
+				throw new IOException("Invalid number of nests " + nestCount);
+			int[] nests = new int[4 * nestCount];
+			for (int i = 0; i < nests.length; i++)
+				nests[i] = in.need(4).getInt();
+			HashSet<Integer> colonyIds = new HashSet<>();
+			for (int c = 0; c < nestCount; c++)
+				if (!colonyIds.add(nests[4 * c]))
+					throw new IOException("Colony " + nests[4 * c] + " has more than one nest");
+
+			CellGrid grid = new CellGrid(size);
+			long runs = in.need(8).getLong();
+			int cells = size * size;
+			int cell = 0;
+			for (long r = 0; r < runs; r++) {
+				buf = in.need(8);
+				int length = buf.getInt();
+				int seeds = buf.getInt();
+				if (length < 0 || seeds < 0 || length > cells - cell)
+					throw new IOException("Invalid food run " + r);
+				grid.putFoodRun(cell, length, seeds);
+				cell += length;
+			}
+
+			Colony[] colonies = new Colony[nestCount];
+			int nextId = 0;
+			for (int c = 0; c < nestCount; c++) {
+				int x = nests[4 * c + 1], y = nests[4 * c + 2], antCount = nests[4 * c + 3];
+				if (x < 0 || x >= size || y < 0 || y >= size || antCount < 0)
+					throw new IOException("Invalid nest " + c);
+				int[] ids = new int[antCount];
+				for (int i = 0; i < antCount; i++)
+					ids[i] = nextId++;
+				colonies[c] = new Colony(grid, "Colony-" + nests[4 * c], x, y, ids, seed);
+			}
+
+			// Obstacles are placed once the nests are, so that none is put on a nest.
+			runs = version == 1 ? 0 : in.need(8).getLong();
+			cell = 0;
+			for (long r = 0; r < runs; r++) {
+				buf = in.need(8);
+				int length = buf.getInt();
+				int kind = buf.getInt();
+				if (length < 0 || kind < CellGrid.OPEN || kind > CellGrid.WATER || length > cells - cell)
+					throw new IOException("Invalid obstacle run " + r);
+				try {
+					for (int i = cell; i < cell + length; i++)
+						grid.putObstacle(i, (byte) kind);
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Invalid obstacle run " + r + ": " + e.getMessage());
+				}
+				cell += length;
+			}
+			return new Simulation(grid, colonies, scentDuration, threads);
+		}
+	}
+
+	/**
+	 * Writes the field and the tribes in a scenario file. It is meant to be called
+	 * before the simulation runs, while all the ants are in their nests.
+	 * 
+	 * @param path
+	 *            The scenario file.
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param colonies
+	 *            The tribes of the field.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public static void save(Path path, CellGrid grid, Colony[] colonies) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+			int size = grid.getSize();
+			buf.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(colonies.length);
+			for (int c = 0; c < colonies.length; c++) {
+				buf = flush(channel, buf, 16);
+				int[] nest = colonies[c].getNestPos();
+				buf.putInt(c).putInt(nest[0]).putInt(nest[1]).putInt(colonies[c].getAnts().length);
+			}
+			buf = flush(channel, buf, 8);
+			long runsPosition = channel.position() + buf.position();
+			buf.putLong(0);
+
+			long runs = 0;
+			int cells = size * size;
+			int end = cells;
+			while (end > 0 && grid.getFood(end - 1) == 0) // The cells after the last run have no seeds.
+				end--;
+			for (int cell = 0; cell < end;) {
+				int seeds = grid.getFood(cell);
+				int length = 1;
+				while (cell + length < end && grid.getFood(cell + length) == seeds)
+					length++;
+				buf = flush(channel, buf, 8);
+				buf.putInt(length).putInt(seeds);
+				cell += length;
+				runs++;
+			}
+			buf = flush(channel, buf, 8);
+			long obstacleRunsPosition = channel.position() + buf.position();
+			buf.putLong(0);
+
+			long obstacleRuns = 0;
+			end = grid.hasObstacles() ? cells : 0;
+			while (end > 0 && grid.getObstacle(end - 1) == CellGrid.OPEN) // The cells after the last run are open.
+				end--;
+			for (int cell = 0; cell < end;) {
+				byte kind = grid.getObstacle(cell);
+				int length = 1;
+				while (cell + length < end && grid.getObstacle(cell + length) == kind)
+					length++;
+				buf = flush(channel, buf, 8);
+				buf.putInt(length).putInt(kind);
+				cell += length;
+				obstacleRuns++;
+			}
+			flush(channel, buf, buf.capacity());
+			channel.write(ByteBuffer.allocate(8).putLong(0, runs), runsPosition);
+			channel.write(ByteBuffer.allocate(8).putLong(0, obstacleRuns), obstacleRunsPosition);
+		}
+	}
+
+	/**
+	 * Writes the buffer to the file if it has less than the given number of bytes
+	 * left.
+	 */
+	private static ByteBuffer flush(FileChannel channel, ByteBuffer buf, int bytes) throws IOException {
+		if (buf.remaining() >= bytes)
+			return buf;
+		buf.flip();
+		while (buf.hasRemaining())
+			channel.write(buf);
+		return buf.clear();
+	}
+
+	/**
+	 * The part of the file that is currently mapped into memory.
+	 */
+	private static class Window {
+
+		private FileChannel channel; // The file.
+		private long base; // Position in the file of the start of the mapped part.
+		private MappedByteBuffer buf; // The mapped part.
+
+		Window(FileChannel channel) throws IOException {
+			this.channel = channel;
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW, channel.size()));
+		}
+
+		/**
+		 * Makes sure the given number of bytes can be read from the mapped part,
+		 * mapping the next part of the file if needed.
+		 * 
+		 * @return The mapped part.
+		 */
+		ByteBuffer need(int bytes) throws IOException {
+			if (buf.remaining() >= bytes)
+				return buf;
+			base += buf.position();
+			long length = Math.min(WINDOW, channel.size() - base);
+			if (length < bytes)
+				throw new IOException("Unexpected end of scenario file");
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+			return buf;
+		}
+
+	}
+
+}
\ No newline at end of file
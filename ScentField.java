@@ -0,0 +1,363 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar BatchRun.java
+ * Execution command: java -classpath . BatchRun -size 1024 -nest 100,100,5000 -food 900,900,50000 -decay 0.02 -diffusion 0.1
+ *
+ * Implementation of the ScentField Object.
+ *
+ */
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ScentField {
+
+	public static final float MIN_LEVEL = 1f / 1024; // Levels below this are too faint to smell and become 0.
+
+	private static final int BAND = 64; // Fewest rows updated by one thread.
+	private static final Kernel VECTOR = vectorKernel(); // Kernel that uses the Vector API, null if it is not available.
+
+	private int size; // Size of the NxN field.
+	private float decay; // Part of the scent of a cell that evaporates at each point in time.
+	private float diffusion; // Part of the scent of a cell that spreads to its four neighbours at each point in time.
+	private float[] level; // Scent level of each cell.
+	private float[] next; // Scent levels of the next point in time while they are computed.
+	private Kernel kernel; // Computes the next levels of a band of rows.
+
+	/**
+	 * Computes the scent levels of the next point in time for a band of rows of
+	 * the field. Every kernel has to give exactly the same levels as the scalar
+	 * one, ScentField.rows(), so that runs do not depend on the kernel, and count
+	 * the same cells whose scent became too faint.
+	 */
+	interface Kernel {
+
+		/**
+		 * Computes the next levels of the rows from first to end.
+		 * 
+		 * @param from
+		 *            Levels of the current point in time.
+		 * @param to
+		 *            Levels of the next point in time, the same array as from when
+		 *            nothing spreads.
+		 * @param size
+		 *            Size of the NxN field.
+		 * @param first
+		 *            First row of the band.
+		 * @param end
+		 *            One after the last row of the band.
+		 * @param stay
+		 *            Factor of the level of a cell that stays on it.
+		 * @param spread
+		 *            Factor of the level of each neighbour that comes to it.
+		 * @return Number of cells whose level was above 0 and below MIN_LEVEL, and
+		 *         became 0.
+		 */
+		int rows(float[] from, float[] to, int size, int first, int end, float stay, float spread);
+
+	}
+
+	/**
+	 * ScentField Object constructor. Instead of units that expire, the scent of
+	 * each cell is a level that decays exponentially and, if diffusion is not 0,
+	 * spreads evenly to the four neighbours of the cell, the scent that would
+	 * spread off the field staying on the cell. The levels are kept in a flat
+	 * array, row after row like the rest of the field, and they are updated with
+	 * the Vector API if it is available and with a plain loop otherwise.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param decay
+	 *            Part of the scent that evaporates at each point in time, above 0
+	 *            and below 1.
+	 * @param diffusion
+	 *            Part of the scent that spreads at each point in time, from 0 to
+	 *            1.
+	 */
+	public ScentField(int size, float decay, float diffusion) {
+		this(size, decay, diffusion, VECTOR != null);
+	}
+
+	/**
+	 * Creates a scent field that is updated with the Vector API or with the
+	 * scalar kernel.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param decay
+	 *            Part of the scent that evaporates at each point in time.
+	 * @param diffusion
+	 *            Part of the scent that spreads at each point in time.
+	 * @param vector
+	 *            Whether the Vector API is used, if it is available.
+	 */
+	ScentField(int size, float decay, float diffusion, boolean vector) {
+		if (!(decay > 0 && decay < 1))
+			throw new IllegalArgumentException("Decay must be above 0 and below 1: " + decay);
+		if (!(diffusion >= 0 && diffusion <= 1))
+			throw new IllegalArgumentException("Diffusion must be from 0 to 1: " + diffusion);
+		this.size = size;
+		this.decay = decay;
+		this.diffusion = diffusion;
+		level = new float[size * size];
+		if (diffusion > 0)
+			next = new float[size * size];
+		kernel = vector && VECTOR != null ? VECTOR : ScentField::rows;
+	}
+
+	/**
+	 * Creates a copy of a scent field, which is used to write a checkpoint.
+	 * 
+	 * @param other
+	 *            The scent field that is copied.
+	 */
+	ScentField(ScentField other) {
+		size = other.size;
+		decay = other.decay;
+		diffusion = other.diffusion;
+		level = other.level.clone();
+		kernel = other.kernel;
+	}
+
+	/**
+	 * Reads a scent field from a checkpoint, as it was written by writeState().
+	 * 
+	 * @param in
+	 *            The checkpoint.
+	 * @param size
+	 *            Size of the NxN field.
+	 * @throws IOException
+	 *             If the checkpoint cannot be read.
+	 */
+	ScentField(Checkpoint.Reader in, int size) throws IOException {
+		this(size, Float.intBitsToFloat(in.getInt()), Float.intBitsToFloat(in.getInt()));
+		in.getFloats(level, 0, level.length);
+	}
+
+	/**
+	 * Writes the scent field to a checkpoint.
+	 * 
+	 * @param out
+	 *            The checkpoint.
+	 * @throws IOException
+	 *             If the checkpoint cannot be written.
+	 */
+	void writeState(Checkpoint.Writer out) throws IOException {
+		out.putInt(Float.floatToIntBits(decay));
+		out.putInt(Float.floatToIntBits(diffusion));
+		out.putFloats(level, 0, level.length);
+	}
+
+	/**
+	 * Loads the kernel that uses the Vector API. It is compiled on its own, with
+	 * the jdk.incubator.vector module, so the rest of the program neither needs
+	 * the module nor the kernel.
+	 */
+	private static Kernel vectorKernel() {
+		try {
+			if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+				return null;
+			return (Kernel) Class.forName("ScentVectorKernel").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the levels are updated with the Vector API.
+	 * 
+	 * @return If the kernel uses the Vector API.
+	 */
+	public boolean isVectorised() {
+		return kernel == VECTOR;
+	}
+
+	/**
+	 * Gives the scent level of the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @return Scent level of the cell, 0 if it has no scent.
+	 */
+	public float get(int index) {
+		return level[index];
+	}
+
+	/**
+	 * Adds scent to the cell at the given index.
+	 * 
+	 * @param index
+	 *            Index of the cell.
+	 * @param amount
+	 *            Scent that is added.
+	 */
+	public void deposit(int index, float amount) {
+		level[index] += amount;
+	}
+
+	/**
+	 * Decays and spreads the scent of every cell by one point in time. The field
+	 * is split into bands of rows that are updated by the threads of the given
+	 * pool. Each level only depends on the levels before the update, so the
+	 * result is the same with any number of threads.
+	 * 
+	 * @param pool
+	 *            Threads that update the bands, null to update the whole field on
+	 *            the calling thread.
+	 * @return Number of cells whose scent became too faint to smell and was
+	 *         taken away.
+	 */
+	public int update(ForkJoinPool pool) {
+		float[] to = level; // Without diffusion each level only depends on itself, so it is updated in place.
+		if (diffusion > 0) {
+			if (next == null)
+				next = new float[size * size];
+			to = next;
+		}
+		int flushed;
+		if (pool == null || size <= BAND)
+			flushed = kernel.rows(level, to, size, 0, size, stay(), spread());
+		else {
+			UpdateTask task = new UpdateTask(to, 0, size);
+			pool.invoke(task);
+			flushed = task.flushed;
+		}
+		if (to != level) {
+			next = level;
+			level = to;
+		}
+		return flushed;
+	}
+
+	/**
+	 * Gives the factor of the level of a cell that stays on it.
+	 */
+	private float stay() {
+		return (1 - decay) * (1 - diffusion);
+	}
+
+	/**
+	 * Gives the factor of the level of each neighbour of a cell that comes to it.
+	 */
+	private float spread() {
+		return (1 - decay) * diffusion / 4;
+	}
+
+	/**
+	 * Task that updates a band of rows, splitting it in halves until it has few
+	 * enough rows.
+	 */
+	private class UpdateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private float[] to; // Levels of the next point in time.
+		private int first; // First row of the band.
+		private int end; // One after the last row of the band.
+		private int flushed; // Cells of the band whose scent was taken away.
+
+		UpdateTask(float[] to, int first, int end) {
+			this.to = to;
+			this.first = first;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - first <= BAND) {
+				flushed = kernel.rows(level, to, size, first, end, stay(), spread());
+				return;
+			}
+			int middle = (first + end) >>> 1;
+			UpdateTask top = new UpdateTask(to, first, middle);
+			UpdateTask bottom = new UpdateTask(to, middle, end);
+			invokeAll(top, bottom);
+			flushed = top.flushed + bottom.flushed;
+		}
+
+	}
+
+	/**
+	 * The scalar kernel. The cells of the first and last column are computed by
+	 * cells(), and the others with a loop that has no bounds to check, which the
+	 * JIT compiler can also unroll.
+	 */
+	static int rows(float[] from, float[] to, int size, int first, int end, float stay, float spread) {
+		int flushed = 0;
+		for (int x = first; x < end; x++) {
+			int row = x * size;
+			if (from == to) { // Nothing spreads, so each level only decays.
+				for (int i = row; i < row + size; i++) {
+					float v = stay * from[i];
+					flushed += faint(v);
+					to[i] = v < MIN_LEVEL ? 0 : v;
+				}
+				continue;
+			}
+			if (x == 0 || x == size - 1 || size < 3) {
+				flushed += cells(from, to, size, x, 0, size, stay, spread);
+				continue;
+			}
+			flushed += cells(from, to, size, x, 0, 1, stay, spread);
+			for (int i = row + 1; i < row + size - 1; i++) {
+				float v = stay * from[i] + spread * (from[i - size] + from[i + size] + from[i - 1] + from[i + 1]);
+				flushed += faint(v);
+				to[i] = v < MIN_LEVEL ? 0 : v;
+			}
+			flushed += cells(from, to, size, x, size - 1, size, stay, spread);
+		}
+		return flushed;
+	}
+
+	/**
+	 * Gives 1 if a level is above 0 but too faint to keep, and 0 otherwise.
+	 */
+	static int faint(float v) {
+		return v > 0 && v < MIN_LEVEL ? 1 : 0;
+	}
+
+	/**
+	 * Computes the next levels of the cells of row x from column y0 to column y1,
+	 * giving each neighbour that is off the field the level of the cell itself.
+	 * The sum of the neighbours is always taken in the same order, up, down, left
+	 * and right, so that every kernel rounds it the same way.
+	 * 
+	 * @param from
+	 *            Levels of the current point in time.
+	 * @param to
+	 *            Levels of the next point in time.
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param x
+	 *            Row of the cells.
+	 * @param y0
+	 *            First column.
+	 * @param y1
+	 *            One after the last column.
+	 * @param stay
+	 *            Factor of the level of a cell that stays on it.
+	 * @param spread
+	 *            Factor of the level of each neighbour that comes to it.
+	 * @return Number of cells whose scent became too faint and was taken away.
+	 */
+	static int cells(float[] from, float[] to, int size, int x, int y0, int y1, float stay, float spread) {
+		int flushed = 0;
+		for (int y = y0; y < y1; y++) {
+			int i = x * size + y;
+			float c = from[i];
+			float up = x > 0 ? from[i - size] : c;
+			float down = x < size - 1 ? from[i + size] : c;
+			float left = y > 0 ? from[i - 1] : c;
+			float right = y < size - 1 ? from[i + 1] : c;
+			float v = stay * c + spread * (up + down + left + right);
+			flushed += faint(v);
+			to[i] = v < MIN_LEVEL ? 0 : v;
+		}
+		return flushed;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,277 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar AntColonies.java
+ * Execution command: java -classpath .:stdlib.jar AntColonies 10 20 R 0
+ *
+ * Implementation of the Simulation Object.
+ *
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class Simulation {
+
+	private CellGrid terain; // The field in which the ants operate.
+	private Colony[] colonies; // The tribes of the field.
+	private Ant[] ants; // All the ants of the field, in the order they commit their steps.
+	private TickEngine engine; // The engine that moves the ants.
+	private int scentDuration; // Maximum life time of a scent.
+	private int time; // Last point in time that has been run.
+	private Ant[] traced = new Ant[0]; // Ants whose state is recorded in an event log at each point in time.
+	private LiveView view; // Live view the field is published to, null if there is none.
+	private int viewEvery; // Points in time between two snapshots published to the live view.
+	private ArrayList<int[]> changes = new ArrayList<>(); // Rectangles of obstacles that are due later, sorted by time.
+
+	/**
+	 * Simulation Object constructor. The ants of the tribes take turns in
+	 * committing their steps, the first ant of each tribe, then the second ant of
+	 * each tribe and so on. Each ant is given the index of its tribe in the
+	 * array of tribes, which is whose scent it follows.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param cols
+	 *            The tribes of the field.
+	 * @param scentDuration
+	 *            Maximum life time of a scent.
+	 * @param threads
+	 *            Number of threads that plan the steps.
+	 */
+	public Simulation(CellGrid grid, Colony[] cols, int scentDuration, int threads) {
+		this(grid, cols, scentDuration, threads, 0);
+	}
+
+	/**
+	 * Creates a simulation that goes on from the given point in time, which is
+	 * used when it is resumed from a checkpoint.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param cols
+	 *            The tribes of the field.
+	 * @param scentDuration
+	 *            Maximum life time of a scent.
+	 * @param threads
+	 *            Number of threads that plan the steps.
+	 * @param time
+	 *            Last point in time that has been run.
+	 */
+	Simulation(CellGrid grid, Colony[] cols, int scentDuration, int threads, int time) {
+		terain = grid;
+		colonies = cols;
+		int total = 0, most = 0;
+		for (Colony col : cols) {
+			total += col.getAnts().length;
+			most = Math.max(most, col.getAnts().length);
+		}
+		ants = new Ant[total];
+		for (int c = 0; c < cols.length; c++)
+			for (Ant ant : cols[c].getAnts())
+				ant.setTribe(c);
+		int k = 0;
+		for (int i = 0; i < most; i++)
+			for (Colony col : cols)
+				if (i < col.getAnts().length)
+					ants[k++] = col.getAnts()[i];
+		engine = new TickEngine(grid, ants, scentDuration, threads);
+		this.scentDuration = scentDuration;
+		this.time = time;
+	}
+
+	/**
+	 * Runs the next point in time.
+	 */
+	public void step() {
+		time++;
+		int due = 0;
+		while (due < changes.size() && changes.get(due)[4] <= time) {
+			int[] rect = changes.get(due++);
+			terain.putObstacles(rect[0], rect[1], rect[2], rect[3], (byte) rect[5]);
+		}
+		if (due > 0)
+			changes.subList(0, due).clear();
+		for (Ant ant : traced)
+			ant.traceState(time);
+		engine.tick(time);
+		if (view != null && time % viewEvery == 0)
+			view.publish(terain, time);
+	}
+
+	/**
+	 * Schedules a rectangle of obstacles that is built or taken down at the
+	 * start of a point in time, before the ants plan their steps, as
+	 * CellGrid.putObstacles() does. Rectangles due at the same point in time are
+	 * placed in the order they were scheduled. The rectangles are kept as
+	 * numbers, so that checkpoints can hold the ones that are still due.
+	 * 
+	 * @param rect
+	 *            Row and column of two opposite corners, the point in time and
+	 *            the kind of the cells.
+	 */
+	public void schedule(int[] rect) {
+		int k = changes.size();
+		while (k > 0 && changes.get(k - 1)[4] > rect[4])
+			k--;
+		changes.add(k, rect.clone());
+	}
+
+	/**
+	 * Gives the rectangles of obstacles that are still due, in the order they
+	 * are placed.
+	 * 
+	 * @return Copies of the rectangles, as given to schedule().
+	 */
+	public int[][] getScheduled() {
+		int[][] due = new int[changes.size()][];
+		for (int i = 0; i < due.length; i++)
+			due[i] = changes.get(i).clone();
+		return due;
+	}
+
+	/**
+	 * Starts counting the moves, pickups, deliveries and scent of each cell in a
+	 * heatmap.
+	 * 
+	 * @param heatmap
+	 *            The heatmap, of the size of the field.
+	 */
+	public void accumulate(Heatmap heatmap) {
+		for (Ant ant : ants)
+			ant.accumulateTo(heatmap);
+		terain.accumulateScentTo(heatmap);
+	}
+
+	/**
+	 * Starts counting the moves, pickups, deliveries and scent of the ants and
+	 * timing each point in time in the metrics of the engine.
+	 * 
+	 * @param metrics
+	 *            The metrics.
+	 */
+	public void measure(EngineMetrics metrics) {
+		for (Ant ant : ants)
+			ant.countTo(metrics);
+		engine.measure(metrics);
+	}
+
+	/**
+	 * Starts publishing snapshots of the field to a live view, which draws them on
+	 * its own thread, so the simulation does not wait for the drawing.
+	 * 
+	 * @param liveView
+	 *            The live view.
+	 * @param every
+	 *            Points in time between two snapshots.
+	 */
+	public void watch(LiveView liveView, int every) {
+		view = liveView;
+		viewEvery = every;
+		view.publish(terain, time);
+	}
+
+	/**
+	 * Starts recording the traced ants in an event log: their state at the start
+	 * of each point in time and their moves, pickups, deliveries and scent.
+	 * 
+	 * @param log
+	 *            The event log.
+	 * @param colony
+	 *            Index of the only tribe whose ants are traced, -1 for all tribes.
+	 * @param antIds
+	 *            Sorted IDs of the only ants that are traced, null for all ants.
+	 */
+	public void trace(EventLog log, int colony, int[] antIds) {
+		int count = 0;
+		Ant[] chosen = new Ant[ants.length];
+		for (int c = 0; c < colonies.length; c++) {
+			if (colony >= 0 && c != colony)
+				continue;
+			for (Ant ant : colonies[c].getAnts())
+				if (antIds == null || Arrays.binarySearch(antIds, ant.getId()) >= 0) {
+					ant.traceTo(log, c);
+					chosen[count++] = ant;
+				}
+		}
+		traced = Arrays.copyOf(chosen, count);
+	}
+
+	/**
+	 * Runs points in time until all the seeds are in the nests or the given point
+	 * in time has been run.
+	 * 
+	 * @param limit
+	 *            Last point in time to run.
+	 * @return The last point in time that has been run.
+	 */
+	public int run(long limit) {
+		while (!terain.finished() && time < limit)
+			step();
+		return time;
+	}
+
+	/**
+	 * Checks whether all the seeds of the field are in the nests.
+	 * 
+	 * @return If the simulation is over.
+	 */
+	public boolean finished() {
+		return terain.finished();
+	}
+
+	/**
+	 * Stops the threads of the engine.
+	 */
+	public void shutdown() {
+		engine.shutdown();
+	}
+
+	/**
+	 * Gives the last point in time that has been run.
+	 * 
+	 * @return Current point in time.
+	 */
+	public int getTime() {
+		return time;
+	}
+
+	/**
+	 * Gives the maximum life time of a scent.
+	 * 
+	 * @return Scent duration.
+	 */
+	public int getScentDuration() {
+		return scentDuration;
+	}
+
+	/**
+	 * Gives the field of the simulation.
+	 * 
+	 * @return NxN cell grid.
+	 */
+	public CellGrid getGrid() {
+		return terain;
+	}
+
+	/**
+	 * Gives the tribes of the field.
+	 * 
+	 * @return The tribes.
+	 */
+	public Colony[] getColonies() {
+		return colonies;
+	}
+
+	/**
+	 * Gives all the ants of the field, in the order they commit their steps.
+	 * 
+	 * @return All the ants.
+	 */
+	public Ant[] getAnts() {
+		return ants;
+	}
+
+}
\ No newline at end of file
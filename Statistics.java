@@ -0,0 +1,227 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar Ensemble.java
+ * Execution command: java -classpath . Ensemble -runs 200 -size 64 -nest 10,10 -food 50,50,500
+ *
+ * Implementation of the Statistics Object.
+ *
+ */
+import java.util.Arrays;
+
+public class Statistics {
+
+	private static final double Z95 = 1.959963984540054; // Normal quantile of a two-sided 95% confidence interval.
+
+	private long count; // Number of values added.
+	private double mean; // Mean of the values.
+	private double squares; // Sum of the squared differences of the values from their mean.
+	private double min = Double.POSITIVE_INFINITY; // Smallest value.
+	private double max = Double.NEGATIVE_INFINITY; // Largest value.
+	private Quantile[] quantiles; // Estimators of the quantiles that are kept.
+
+	/**
+	 * Estimates a quantile with the P-Square algorithm of Jain and Chlamtac, which
+	 * keeps five markers instead of the values: the smallest and largest value,
+	 * the quantile and the quantiles halfway to either end. The heights of the
+	 * markers are moved along a parabola through their neighbours as the values
+	 * arrive. The first five values are kept as they are, so the quantile is
+	 * exact until then.
+	 */
+	private static class Quantile {
+
+		private double p; // The quantile, from 0 to 1.
+		private double[] height = new double[5]; // Height of each marker.
+		private double[] position = new double[5]; // Position of each marker, from 1 to the number of values.
+		private double[] desired = new double[5]; // Position each marker should be at.
+		private double[] increment; // Change of the desired positions with each value.
+		private int seen; // Number of values seen.
+
+		Quantile(double p) {
+			this.p = p;
+			increment = new double[] { 0, p / 2, p, (1 + p) / 2, 1 };
+		}
+
+		void add(double x) {
+			if (seen < 5) {
+				height[seen++] = x;
+				if (seen == 5) {
+					Arrays.sort(height);
+					for (int i = 0; i < 5; i++)
+						position[i] = i + 1;
+					desired = new double[] { 1, 1 + 2 * p, 1 + 4 * p, 3 + 2 * p, 5 };
+				}
+				return;
+			}
+			seen++;
+			int k; // Cell between the markers the value falls in.
+			if (x < height[0]) {
+				height[0] = x;
+				k = 0;
+			} else if (x >= height[4]) {
+				height[4] = x;
+				k = 3;
+			} else {
+				k = 0;
+				while (x >= height[k + 1])
+					k++;
+			}
+			for (int i = k + 1; i < 5; i++)
+				position[i]++;
+			for (int i = 0; i < 5; i++)
+				desired[i] += increment[i];
+			for (int i = 1; i < 4; i++) {
+				double d = desired[i] - position[i];
+				if (d >= 1 && position[i + 1] - position[i] > 1 || d <= -1 && position[i - 1] - position[i] < -1) {
+					int s = d > 0 ? 1 : -1;
+					double h = parabolic(i, s);
+					if (!(height[i - 1] < h && h < height[i + 1]))
+						h = height[i] + s * (height[i + s] - height[i]) / (position[i + s] - position[i]);
+					height[i] = h;
+					position[i] += s;
+				}
+			}
+		}
+
+		/**
+		 * Gives the height of marker i moved by s along the parabola through it and
+		 * its neighbours.
+		 */
+		private double parabolic(int i, int s) {
+			return height[i] + s / (position[i + 1] - position[i - 1])
+					* ((position[i] - position[i - 1] + s) * (height[i + 1] - height[i])
+							/ (position[i + 1] - position[i])
+							+ (position[i + 1] - position[i] - s) * (height[i] - height[i - 1])
+									/ (position[i] - position[i - 1]));
+		}
+
+		double get() {
+			if (seen >= 5)
+				return height[2];
+			if (seen == 0)
+				return Double.NaN;
+			double[] values = Arrays.copyOf(height, seen);
+			Arrays.sort(values);
+			return values[Math.min(seen - 1, Math.max(0, (int) Math.ceil(p * seen) - 1))];
+		}
+
+	}
+
+	/**
+	 * Statistics Object constructor. It summarises a stream of values as they
+	 * arrive, in constant memory: their count, smallest and largest value, their
+	 * mean and variance, which are updated with Welford's method so that they do
+	 * not lose precision, and estimates of the given quantiles.
+	 * 
+	 * @param probabilities
+	 *            The quantiles that are estimated, each from 0 to 1.
+	 */
+	public Statistics(double... probabilities) {
+		quantiles = new Quantile[probabilities.length];
+		for (int i = 0; i < probabilities.length; i++) {
+			if (!(probabilities[i] >= 0 && probabilities[i] <= 1))
+				throw new IllegalArgumentException("Quantile must be from 0 to 1: " + probabilities[i]);
+			quantiles[i] = new Quantile(probabilities[i]);
+		}
+	}
+
+	/**
+	 * Adds a value.
+	 * 
+	 * @param x
+	 *            The value.
+	 */
+	public void add(double x) {
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		squares += delta * (x - mean);
+		min = Math.min(min, x);
+		max = Math.max(max, x);
+		for (Quantile q : quantiles)
+			q.add(x);
+	}
+
+	/**
+	 * Gives the number of values added.
+	 * 
+	 * @return Number of values.
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Gives the mean of the values.
+	 * 
+	 * @return The mean, NaN if there are none.
+	 */
+	public double mean() {
+		return count > 0 ? mean : Double.NaN;
+	}
+
+	/**
+	 * Gives the sample variance of the values.
+	 * 
+	 * @return The variance, NaN if there are fewer than two values.
+	 */
+	public double variance() {
+		return count > 1 ? squares / (count - 1) : Double.NaN;
+	}
+
+	/**
+	 * Gives the sample standard deviation of the values.
+	 * 
+	 * @return The standard deviation, NaN if there are fewer than two values.
+	 */
+	public double standardDeviation() {
+		return Math.sqrt(variance());
+	}
+
+	/**
+	 * Gives half the width of the 95% confidence interval of the mean, by the
+	 * normal approximation.
+	 * 
+	 * @return Half the width of the interval, NaN if there are fewer than two
+	 *         values.
+	 */
+	public double halfWidth() {
+		return Z95 * standardDeviation() / Math.sqrt(count);
+	}
+
+	/**
+	 * Gives the smallest value.
+	 * 
+	 * @return The smallest value, NaN if there are none.
+	 */
+	public double min() {
+		return count > 0 ? min : Double.NaN;
+	}
+
+	/**
+	 * Gives the largest value.
+	 * 
+	 * @return The largest value, NaN if there are none.
+	 */
+	public double max() {
+		return count > 0 ? max : Double.NaN;
+	}
+
+	/**
+	 * Gives the estimate of one of the quantiles given to the constructor.
+	 * 
+	 * @param p
+	 *            The quantile.
+	 * @return Estimate of the quantile, NaN if there are no values.
+	 */
+	public double quantile(double p) {
+		for (Quantile q : quantiles)
+			if (q.p == p)
+				return q.get();
+		throw new IllegalArgumentException("Quantile " + p + " is not estimated");
+	}
+
+}
\ No newline at end of file
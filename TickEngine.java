@@ -0,0 +1,364 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar AntColonies.java
+ * Execution command: java -classpath .:stdlib.jar AntColonies 10 20 R 0
+ *
+ * Implementation of the TickEngine Object.
+ *
+ */
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class TickEngine {
+
+	private static final int CHUNK = 4096; // Fewer ants than this are planned on the calling thread.
+	private static final double IMBALANCE = 1.25; // Ratio of the largest tile load to the mean above which a new split is worked out.
+	private static final double GAIN = 0.8; // Largest ratio of the peak load of a new split to the current one that moves the tiles.
+
+	private CellGrid terain; // The field in which the ants operate.
+	private Ant[] ants; // All the ants of the field, in the order they commit their steps.
+	private int scentDuration; // Maximum life time of a scent.
+	private ForkJoinPool pool; // Threads that plan the steps, null if only one is used.
+	private Tile[] tiles; // Bands of rows of the field, one per thread, null if only one thread is used.
+	private int[] rowTile; // Index of the tile that owns each row of the field.
+	private int[] rowLoad; // Number of ants on each row of the field, used when rebalancing.
+	private int[] split; // First row of each tile in the last split worked out, and the size of the field after them.
+	private int[] antTile; // Index of the tile each ant belongs to.
+	private boolean balanced; // Whether the tiles have been laid out for the current ants.
+	private EngineMetrics metrics; // Metrics each point in time is timed in, null if it is not timed.
+
+	/**
+	 * TickEngine Object constructor. Each point in time is run in two phases. In
+	 * the first one, the ants plan their steps by only reading the field, split
+	 * across the given number of threads. In the second one, the steps are applied
+	 * to the field one ant at a time, in the order of the given array. Therefore,
+	 * the simulation gives the same results for a given seed no matter how many
+	 * threads are used.
+	 * <p>
+	 * With more than one thread, the field is split into tiles, which are bands of
+	 * consecutive rows, one per thread. Each thread plans the ants that are on its
+	 * tile, reading the scent from its own copy of the rows of the tile and of the
+	 * row next to each of its edges. The copies are brought up to date from the
+	 * log of scent changes of the field. Scent levels, which all change at every
+	 * point in time, and the scent of each tribe are read from the field itself
+	 * instead, which does not change while the ants plan. Scent levels are also
+	 * decayed and spread by the same threads. Ants that cross the edge of a tile are
+	 * handed to the tile they enter, and the rows of the tiles are moved whenever
+	 * some tile ends up with too many of the ants and a new split would share
+	 * them out noticeably better.
+	 * 
+	 * @param grid
+	 *            NxN cell grid.
+	 * @param allAnts
+	 *            All the ants of the field, in the order they commit their steps.
+	 * @param duration
+	 *            Maximum life time of a scent.
+	 * @param threads
+	 *            Number of threads that plan the steps.
+	 */
+	public TickEngine(CellGrid grid, Ant[] allAnts, int duration, int threads) {
+		terain = grid;
+		ants = allAnts;
+		scentDuration = duration;
+		if (threads > 1) {
+			pool = new ForkJoinPool(threads);
+			tiles = new Tile[Math.min(threads, grid.getSize())];
+			for (int t = 0; t < tiles.length; t++)
+				tiles[t] = new Tile();
+			rowTile = new int[grid.getSize()];
+			rowLoad = new int[grid.getSize()];
+			split = new int[tiles.length + 1];
+			antTile = new int[allAnts.length];
+			terain.logScentChanges();
+		}
+	}
+
+	/**
+	 * Moves all the ants by one step at a given point in time and then updates the
+	 * scent of the field.
+	 * 
+	 * @param time
+	 *            Current point in time.
+	 */
+	public void tick(int time) {
+		long start = metrics != null ? System.nanoTime() : 0;
+		if (tiles == null || ants.length <= CHUNK) {
+			for (Ant ant : ants)
+				ant.plan(time);
+			if (tiles != null) { // The copies of the tiles are reloaded when they are used again.
+				terain.clearScentChanges();
+				balanced = false;
+			}
+		} else {
+			if (!balanced) {
+				split();
+				rebalance();
+			} else if (imbalanced())
+				rebalance();
+			pool.invoke(new PlanTask(time, 0, tiles.length));
+			terain.clearScentChanges();
+		}
+
+		if (!balanced)
+			for (Ant ant : ants)
+				ant.commit(time);
+		else
+			for (int i = 0; i < ants.length; i++) {
+				ants[i].commit(time);
+				int tile = rowTile[ants[i].getPos()[0]];
+				if (tile != antTile[i]) // The ant crossed the edge of its tile.
+					migrate(i, tile);
+			}
+		long moved = metrics != null ? System.nanoTime() : 0;
+		int units = terain.scentUnitCount();
+		int flushed = 0;
+		if (terain.getScentField() != null)
+			flushed = terain.updateScentLevels(pool);
+		else
+			terain.updateScent(time, scentDuration);
+		if (metrics != null) // Scent units are only taken away while the scent is updated.
+			metrics.ticked(time, moved - start, System.nanoTime() - moved,
+					units - terain.scentUnitCount() + flushed);
+	}
+
+	/**
+	 * Starts timing the phases of each point in time, the steps of the ants and
+	 * the update of the scent, in the metrics of the engine.
+	 * 
+	 * @param engineMetrics
+	 *            The metrics.
+	 */
+	public void measure(EngineMetrics engineMetrics) {
+		metrics = engineMetrics;
+	}
+
+	/**
+	 * Hands an ant to the tile it entered, through the buffer of ants that
+	 * arrive at that tile. The tile it left drops it the next time it plans.
+	 * 
+	 * @param ant
+	 *            Position of the ant in the ants array.
+	 * @param tile
+	 *            Index of the tile it entered.
+	 */
+	private void migrate(int ant, int tile) {
+		tiles[antTile[ant]].load--;
+		antTile[ant] = tile;
+		Tile to = tiles[tile];
+		to.arrivals = append(to.arrivals, to.arrivalCount++, ant);
+		to.load++;
+	}
+
+	/**
+	 * Stops the threads of the engine.
+	 */
+	public void shutdown() {
+		if (pool != null)
+			pool.shutdown();
+	}
+
+	/**
+	 * Checks whether the ants are spread unevenly among the tiles and a new
+	 * split would spread them meaningfully better. Moving the tiles reloads
+	 * their copies of the scent from the whole field, so it is not done when
+	 * the ants are crowded on rows that no split can share out, such as a single
+	 * busy row. The new split is left in split for rebalance().
+	 * 
+	 * @return If the largest tile load is too far above the mean, and the largest
+	 *         load of a new split is well below it.
+	 */
+	private boolean imbalanced() {
+		int max = 0;
+		for (Tile tile : tiles)
+			max = Math.max(max, tile.load);
+		return max > IMBALANCE * ants.length / tiles.length && split() < GAIN * max;
+	}
+
+	/**
+	 * Works out a split of the rows of the field into tiles that hold about the
+	 * same number of ants, leaving at least one row to each tile, without
+	 * moving the tiles yet.
+	 * 
+	 * @return The largest number of ants of a tile of the split.
+	 */
+	private int split() {
+		int size = terain.getSize();
+		Arrays.fill(rowLoad, 0);
+		for (Ant ant : ants)
+			rowLoad[ant.getPos()[0]]++;
+
+		int row = 0, peak = 0;
+		long load = 0;
+		for (int t = 0; t < tiles.length; t++) {
+			long before = load;
+			split[t] = row;
+			long target = (long) ants.length * (t + 1) / tiles.length;
+			int lastAllowed = size - (tiles.length - t); // Leave a row for each of the next tiles.
+			if (t == tiles.length - 1) {
+				row = size;
+				load = ants.length;
+			} else {
+				do
+					load += rowLoad[row++];
+				while (row <= lastAllowed && load + rowLoad[row] / 2 < target);
+			}
+			peak = (int) Math.max(peak, load - before);
+		}
+		split[tiles.length] = size;
+		return peak;
+	}
+
+	/**
+	 * Moves the tiles to the split worked out last, and hands each ant to the
+	 * tile it is on.
+	 */
+	private void rebalance() {
+		int size = terain.getSize();
+		for (int t = 0; t < tiles.length; t++) {
+			for (int r = split[t]; r < split[t + 1]; r++)
+				rowTile[r] = t;
+			tiles[t].resize(split[t], split[t + 1], size);
+		}
+
+		for (int i = 0; i < ants.length; i++) {
+			antTile[i] = rowTile[ants[i].getPos()[0]];
+			Tile tile = tiles[antTile[i]];
+			tile.members = append(tile.members, tile.memberCount++, i);
+			tile.load++;
+		}
+		balanced = true;
+	}
+
+	/**
+	 * Task that plans the ants of a range of the tiles, splitting it in halves
+	 * until it is a single tile.
+	 */
+	private class PlanTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int time; // Current point in time.
+		private int from; // First tile of the range.
+		private int to; // One after the last tile of the range.
+
+		PlanTask(int time, int from, int to) {
+			this.time = time;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				tiles[from].plan(from, time);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new PlanTask(time, from, middle), new PlanTask(time, middle, to));
+		}
+
+	}
+
+	/**
+	 * A band of consecutive rows of the field, together with the ants that are on
+	 * it and a copy of the scent of its rows and the rows next to its edges.
+	 */
+	private class Tile {
+
+		private int[] members = new int[16]; // Positions in the ants array of the ants on the tile.
+		private int memberCount; // Number of entries in the above array.
+		private int[] arrivals = new int[16]; // Ants that entered the tile since it last planned.
+		private int arrivalCount; // Number of entries in the above array.
+		private int load; // Number of ants that belong to the tile.
+		private int[] halo = new int[0]; // Copy of the scent of the rows of the tile and the one next to each edge.
+		private int haloOffset; // Index of the cell whose scent is at the start of the copy.
+		private int haloLength; // Number of cells in the copy.
+		private boolean reload; // Whether the copy has to be read again from the field.
+
+		/**
+		 * Gives the rows between first and end to the tile and forgets its ants.
+		 */
+		void resize(int first, int end, int size) {
+			haloOffset = Math.max(0, first - 1) * size;
+			haloLength = Math.min(size, end + 1) * size - haloOffset;
+			if (halo.length < haloLength)
+				halo = new int[haloLength];
+			reload = true;
+			memberCount = 0;
+			arrivalCount = 0;
+			load = 0;
+		}
+
+		/**
+		 * Drops the ants that left the tile, takes in the ants that arrived, brings
+		 * the copy of the scent up to date and plans the steps of the ants of the
+		 * tile. The ants are kept in the order of the ants array, which is the order
+		 * they were created in, so they are mostly read from memory one after the
+		 * other.
+		 */
+		void plan(int self, int time) {
+			int kept = 0;
+			for (int i = 0; i < memberCount; i++)
+				if (antTile[members[i]] == self)
+					members[kept++] = members[i];
+
+			// Arrivals were added in the order of the ants array, so both lists are
+			// sorted and they are merged starting from their ends.
+			if (kept + arrivalCount > members.length)
+				members = Arrays.copyOf(members, Math.max(members.length * 2, kept + arrivalCount));
+			int m = kept - 1;
+			int a = arrivalCount - 1;
+			for (int k = kept + arrivalCount - 1; a >= 0; k--)
+				members[k] = m >= 0 && members[m] > arrivals[a] ? members[m--] : arrivals[a--];
+			memberCount = kept + arrivalCount;
+			arrivalCount = 0;
+
+			if (!terain.sharesScent()) { // Scent levels and the scent of each tribe are read from the field itself.
+				for (int i = 0; i < memberCount; i++)
+					ants[members[i]].plan(time, null, 0);
+				return;
+			}
+			if (reload) {
+				terain.copyScent(haloOffset, halo, 0, haloLength);
+				reload = false;
+			} else {
+				int[] changes = terain.scentChanges();
+				int count = terain.scentChangeCount();
+				for (int i = 0; i < count; i++) {
+					int cell = changes[i] - haloOffset;
+					if (cell >= 0 && cell < haloLength)
+						halo[cell] = terain.getScent(changes[i]);
+				}
+			}
+
+			for (int i = 0; i < memberCount; i++)
+				ants[members[i]].plan(time, halo, haloOffset);
+		}
+
+	}
+
+	/**
+	 * Stores a value at the given position of an array, expanding the array if
+	 * needed.
+	 * 
+	 * @param array
+	 *            Array the value is stored in.
+	 * @param position
+	 *            Position of the value.
+	 * @param value
+	 *            The value.
+	 * @return The array, or its expanded copy.
+	 */
+	private static int[] append(int[] array, int position, int value) {
+		if (position == array.length)
+			array = Arrays.copyOf(array, array.length * 2);
+		array[position] = value;
+		return array;
+	}
+
+}
\ No newline at end of file
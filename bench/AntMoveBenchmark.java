@@ -0,0 +1,69 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar:jmh-core.jar:jmh-generator-annprocess.jar -d bench/classes *.java bench/*.java
+ * Execution command: java -classpath bench/classes:stdlib.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar Benchmarks
+ *
+ * Benchmark of Ant.move, while the ants look for food and while they go back
+ * to their nests.
+ *
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AntMoveBenchmark {
+
+	@Param({ "5", "64", "512", "4096" })
+	int gridSize; // Size of the NxN field.
+
+	@Param({ "20", "10000", "1000000" })
+	int antCount; // Number of ants of all the tribes.
+
+	@Param({ "2", "8" })
+	int colonies; // Number of tribes.
+
+	@Param({ "search", "return" })
+	String mode; // Whether there is no food at all, or food on every cell so the ants mostly go back.
+
+	private BenchWorld world; // The field with the ants.
+	private int time; // Current point in time.
+
+	@Setup
+	public void setUp() {
+		world = new BenchWorld(gridSize, antCount, colonies, mode.equals("return"), 42);
+		time = 1;
+	}
+
+	/**
+	 * Moves every ant by one step, one after the other, and evaporates the scent
+	 * so that it stays bounded. One operation is a whole point in time.
+	 */
+	@Benchmark
+	public void moveAllAnts() {
+		for (Ant ant : world.ants)
+			ant.move(time);
+		world.grid.updateScent(time, 50);
+		time++;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar:jmh-core.jar:jmh-generator-annprocess.jar -d bench/classes *.java bench/*.java
+ * Execution command: java -classpath bench/classes:stdlib.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar Benchmarks
+ *
+ * Field with nests and ants that is shared by the benchmarks.
+ *
+ */
+public class BenchWorld {
+
+	CellGrid grid; // The field.
+	Colony[] colonies; // The tribes of the field.
+	Ant[] ants; // All the ants of the field, tribe after tribe.
+
+	/**
+	 * Creates a field with the given number of tribes, whose nests are spread
+	 * along its diagonal, sharing the given number of ants between them.
+	 * 
+	 * @param size
+	 *            Size of the NxN field.
+	 * @param antCount
+	 *            Number of ants of all the tribes.
+	 * @param colonyCount
+	 *            Number of tribes.
+	 * @param foodEverywhere
+	 *            Whether every cell without a nest gets plenty of seeds, so that
+	 *            the ants spend most of their steps going back to their nests.
+	 * @param seed
+	 *            Seed of the simulation.
+	 */
+	BenchWorld(int size, int antCount, int colonyCount, boolean foodEverywhere, long seed) {
+		grid = new CellGrid(size);
+		colonies = new Colony[colonyCount];
+		ants = new Ant[antCount];
+		int next = 0;
+		for (int c = 0; c < colonyCount; c++) {
+			int[] ids = new int[antCount / colonyCount + (c < antCount % colonyCount ? 1 : 0)];
+			for (int i = 0; i < ids.length; i++)
+				ids[i] = next + i;
+			int nest = (int) ((2L * c + 1) * size / (2L * colonyCount));
+			colonies[c] = new Colony(grid, "Colony-" + c, nest, nest, ids, seed);
+			System.arraycopy(colonies[c].getAnts(), 0, ants, next, ids.length);
+			next += ids.length;
+		}
+		if (foodEverywhere)
+			for (int i = 0; i < size * size; i++)
+				if (!grid.withNest(i))
+					grid.putFood(i, 1 << 20);
+	}
+
+}
\ No newline at end of file
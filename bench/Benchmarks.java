@@ -0,0 +1,27 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar:jmh-core.jar:jmh-generator-annprocess.jar -d bench/classes *.java bench/*.java
+ * Execution command: java -classpath bench/classes:stdlib.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar Benchmarks [regexp]
+ *
+ * Runs the benchmarks whose names match the given regular expression (all of
+ * them by default) with the GC profiler, which reports the allocation rate
+ * next to the time of each benchmark.
+ *
+ */
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class Benchmarks {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : "Benchmark\\.";
+		new Runner(new OptionsBuilder().include(include).addProfiler(GCProfiler.class).build()).run();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar:jmh-core.jar:jmh-generator-annprocess.jar -d bench/classes *.java bench/*.java
+ * Execution command: java -classpath bench/classes:stdlib.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar Benchmarks
+ *
+ * Benchmark of CellGrid.updateScent and CellGrid.allSeedsCollected for
+ * different sizes of field and amounts of scent.
+ *
+ */
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GridBenchmark {
+
+	@Param({ "5", "64", "512", "4096" })
+	int gridSize; // Size of the NxN field.
+
+	@Param({ "0", "100", "10000" })
+	int unitsPerTick; // Scent units anointed at every point in time.
+
+	private CellGrid grid; // The field.
+	private int[] cells; // Random cells that are anointed, one after the other.
+	private int next; // Position in the above array of the next cell to anoint.
+	private int time; // Current point in time.
+
+	@Setup
+	public void setUp() {
+		grid = new CellGrid(gridSize);
+		SplittableRandom random = new SplittableRandom(42);
+		cells = new int[1 << 16];
+		for (int i = 0; i < cells.length; i++)
+			cells[i] = random.nextInt(gridSize * gridSize);
+		for (int i = 0; i < 64; i++)
+			grid.putFood(cells[i], 10);
+		time = 1;
+		for (int i = 0; i < 100; i++) // Start with the scent in its steady state.
+			updateScent();
+	}
+
+	/**
+	 * Anoints random cells and evaporates the expired units of the whole field.
+	 */
+	@Benchmark
+	public void updateScent() {
+		for (int u = 0; u < unitsPerTick; u++) {
+			grid.addScent(cells[next], time);
+			next = (next + 1) & (cells.length - 1);
+		}
+		grid.updateScent(time, 50);
+		time++;
+	}
+
+	/**
+	 * Checks whether the seeds of the field have been collected.
+	 */
+	@Benchmark
+	public boolean allSeedsCollected() {
+		return grid.allSeedsCollected();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar:jmh-core.jar:jmh-generator-annprocess.jar -d bench/classes *.java bench/*.java
+ * Execution command: java -classpath bench/classes:stdlib.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar Benchmarks
+ *
+ * Benchmark of Cell.addScent and Cell.updateScent on a trail, for different
+ * numbers of units anointed to each of its cells at every point in time.
+ *
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScentBenchmark {
+
+	private static final int TRAIL = 64; // Number of cells of the trail.
+
+	@Param({ "1", "8", "64" })
+	int density; // Units anointed to each cell of the trail at every point in time.
+
+	@Param({ "50" })
+	int scentDuration; // Maximum life time of a scent.
+
+	private CellGrid grid; // The field of the trail.
+	private Cell[] trail; // The cells of the trail.
+	private int time; // Current point in time.
+
+	@Setup
+	public void setUp() {
+		grid = new CellGrid(TRAIL);
+		trail = new Cell[TRAIL];
+		for (int i = 0; i < TRAIL; i++)
+			trail[i] = grid.getCell(TRAIL / 2, i);
+		time = 1;
+		for (int i = 0; i < 2 * scentDuration; i++) // Start with a trail that has reached its steady state.
+			depositAndEvaporate();
+	}
+
+	/**
+	 * Anoints every cell of the trail and then evaporates the expired units, so
+	 * in the steady state as many units evaporate as are anointed.
+	 */
+	@Benchmark
+	public void depositAndEvaporate() {
+		for (Cell cell : trail)
+			for (int d = 0; d < density; d++)
+				cell.addScent(time);
+		trail[0].updateScent(time, scentDuration);
+		time++;
+	}
+
+	/**
+	 * Reads the scent of every cell of the trail.
+	 */
+	@Benchmark
+	public int readScent() {
+		int total = 0;
+		for (Cell cell : trail)
+			total += cell.getScent();
+		return total;
+	}
+
+}
\ No newline at end of file
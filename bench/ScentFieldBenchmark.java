@@ -0,0 +1,78 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar:jmh-core.jar:jmh-generator-annprocess.jar -d bench/classes *.java bench/*.java
+ * Execution command: java -classpath bench/classes:stdlib.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar Benchmarks ScentField
+ *
+ * Benchmark of ScentField.update with the scalar kernel and with the Vector
+ * API, for different sizes of field, with and without diffusion. Each update
+ * reads and writes every level once, so 8 bytes per cell over the time of a
+ * benchmark gives the memory bandwidth it reaches. The vector kernel is only
+ * used if it was compiled into bench/classes, with
+ * javac --add-modules jdk.incubator.vector -classpath bench/classes -d bench/classes vector/ScentVectorKernel.java
+ *
+ */
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g", "--add-modules", "jdk.incubator.vector" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScentFieldBenchmark {
+
+	@Param({ "512", "4096", "8192" })
+	int gridSize; // Size of the NxN field.
+
+	@Param({ "0", "0.1" })
+	float diffusion; // Part of the scent that spreads at each point in time.
+
+	@Param({ "false", "true" })
+	boolean vector; // Whether the Vector API is used.
+
+	private ScentField field; // The scent levels.
+	private int[] cells; // Random cells that are anointed, one after the other.
+	private int next; // Position in the above array of the next cell to anoint.
+
+	@Setup
+	public void setUp() {
+		field = new ScentField(gridSize, 0.02f, diffusion, vector);
+		SplittableRandom random = new SplittableRandom(42);
+		cells = new int[1 << 16];
+		for (int i = 0; i < cells.length; i++)
+			cells[i] = random.nextInt(gridSize * gridSize);
+		for (int i = 0; i < 200; i++) // Start with the scent in its steady state.
+			update();
+	}
+
+	/**
+	 * Anoints 1000 random cells and decays and spreads the scent of the whole
+	 * field on the calling thread.
+	 */
+	@Benchmark
+	public void update() {
+		for (int u = 0; u < 1000; u++) {
+			field.deposit(cells[next], 1);
+			next = (next + 1) & (cells.length - 1);
+		}
+		field.update(null);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac -classpath .:stdlib.jar:jmh-core.jar:jmh-generator-annprocess.jar -d bench/classes *.java bench/*.java
+ * Execution command: java -classpath bench/classes:stdlib.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar Benchmarks
+ *
+ * Benchmark of a whole point in time of the simulation, run by TickEngine.
+ *
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TickBenchmark {
+
+	@Param({ "5", "64", "512", "4096" })
+	int gridSize; // Size of the NxN field.
+
+	@Param({ "20", "10000", "1000000" })
+	int antCount; // Number of ants of all the tribes.
+
+	@Param({ "2", "8" })
+	int colonies; // Number of tribes.
+
+	@Param({ "1", "4" })
+	int threads; // Number of threads that plan the steps.
+
+	private BenchWorld world; // The field with the ants.
+	private TickEngine engine; // The engine that runs the simulation.
+	private int time; // Current point in time.
+
+	@Setup
+	public void setUp() {
+		world = new BenchWorld(gridSize, antCount, colonies, false, 42);
+		int size = gridSize;
+		for (int i = 0; i < colonies; i++) { // A large food source next to each nest.
+			int[] nest = world.colonies[i].getNestPos();
+			int x = Math.min(size - 1, nest[0] + size / 8 + 1);
+			if (!world.grid.withNest(world.grid.index(x, nest[1])))
+				world.grid.putFood(x, nest[1], 1 << 30);
+		}
+		engine = new TickEngine(world.grid, world.ants, 50, threads);
+		time = 1;
+	}
+
+	@TearDown
+	public void tearDown() {
+		engine.shutdown();
+	}
+
+	/**
+	 * Runs one point in time of the simulation.
+	 */
+	@Benchmark
+	public void tick() {
+		engine.tick(time++);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+
+/**
+ * Author: Marcos Antonios Charalambous
+ * Written: 26/11/2020
+ * Last updated: 01/12/2020
+ *
+ * Compilation command: javac --add-modules jdk.incubator.vector -classpath . -d . vector/ScentVectorKernel.java
+ * Execution command: java --add-modules jdk.incubator.vector -classpath . BatchRun -size 8192 -nest 100,100,5000 -food 8000,8000,50000 -decay 0.02 -diffusion 0.1
+ *
+ * Kernel of ScentField that uses the Vector API of the jdk.incubator.vector
+ * module. It is kept apart from the other classes, and compiled on its own, so
+ * that they build and run without the module. When the module is added and
+ * this class is on the class path, ScentField uses it instead of its scalar
+ * kernel.
+ *
+ */
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class ScentVectorKernel implements ScentField.Kernel {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED; // Widest vectors of the processor.
+
+	/**
+	 * Computes the next levels of a band of rows as ScentField.rows() does, a
+	 * whole vector of cells at a time. Each lane takes the same steps, in the same
+	 * order, as the scalar kernel, without fused multiply-adds, so both give
+	 * exactly the same levels and take away the same faint cells.
+	 */
+	@Override
+	public int rows(float[] from, float[] to, int size, int first, int end, float stay, float spread) {
+		int flushed = 0;
+		FloatVector floor = FloatVector.broadcast(SPECIES, ScentField.MIN_LEVEL);
+		FloatVector zero = FloatVector.zero(SPECIES);
+		int lanes = SPECIES.length();
+		for (int x = first; x < end; x++) {
+			int row = x * size;
+			if (from == to) { // Nothing spreads, so each level only decays.
+				int i = row;
+				for (; i <= row + size - lanes; i += lanes) {
+					FloatVector v = FloatVector.fromArray(SPECIES, from, i).mul(stay);
+					VectorMask<Float> faint = v.compare(VectorOperators.LT, floor);
+					flushed += faint.and(v.compare(VectorOperators.GT, zero)).trueCount();
+					v.blend(zero, faint).intoArray(to, i);
+				}
+				for (; i < row + size; i++) {
+					float v = stay * from[i];
+					flushed += ScentField.faint(v);
+					to[i] = v < ScentField.MIN_LEVEL ? 0 : v;
+				}
+				continue;
+			}
+			if (x == 0 || x == size - 1 || size < 3) {
+				flushed += ScentField.cells(from, to, size, x, 0, size, stay, spread);
+				continue;
+			}
+			flushed += ScentField.cells(from, to, size, x, 0, 1, stay, spread);
+			int y = 1;
+			for (; y <= size - 1 - lanes; y += lanes) {
+				int i = row + y;
+				FloatVector sum = FloatVector.fromArray(SPECIES, from, i - size)
+						.add(FloatVector.fromArray(SPECIES, from, i + size))
+						.add(FloatVector.fromArray(SPECIES, from, i - 1))
+						.add(FloatVector.fromArray(SPECIES, from, i + 1));
+				FloatVector v = FloatVector.fromArray(SPECIES, from, i).mul(stay).add(sum.mul(spread));
+				VectorMask<Float> faint = v.compare(VectorOperators.LT, floor);
+				flushed += faint.and(v.compare(VectorOperators.GT, zero)).trueCount();
+				v.blend(zero, faint).intoArray(to, i);
+			}
+			flushed += ScentField.cells(from, to, size, x, y, size, stay, spread);
+		}
+		return flushed;
+	}
+
+}
\ No newline at end of file